@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config;
+
+import com.prutsoft.config.element.ElementIndex;
+import com.prutsoft.config.element.ElementUtil;
+import com.prutsoft.config.exception.ValueAccessException;
+import com.prutsoft.core.annotation.NotNull;
+import com.prutsoft.core.annotation.Nullable;
+import com.prutsoft.core.asserts.ArgumentAssert;
+
+/**
+ * The handle of the configuration property. Property path is resolved to the element once,
+ * so getting value with handle doesn't parse path and doesn't search included configurations.
+ * <p>
+ * Handle is bound to the configuration it was created for. If this configuration
+ * is a {@link ConfigurationWrapper} (e.g. reloadable configuration), than the element
+ * is resolved again only when wrapper gets new configuration.
+ * <p>
+ * Use {@link Configuration#key(String, Class)} to create handle:
+ * <pre>
+ *  ConfigKey&lt;Integer&gt; poolSize = configuration.key("db:pool:size", Integer.class);
+ *  ...
+ *  Integer size = poolSize.get();
+ * </pre>
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-03
+ */
+public final class ConfigKey<T> {
+
+    private final Configuration configuration;
+    private final String property;
+    private final String[] path;
+    private final Class<T> type;
+
+    /**
+     * The element resolved for the last seen configuration.
+     */
+    private volatile Resolution resolution;
+
+    /**
+     * Creates new property handle.
+     *
+     * @param configuration the configuration to get property from; can't be null.
+     * @param property      the property name, parts of path are separated with colons; can't be null or empty.
+     * @param type          the type of the property value; can't be null.
+     */
+    public ConfigKey(@NotNull Configuration configuration, @NotNull String property, @NotNull Class<T> type) {
+        ArgumentAssert.isNotNull(configuration, "Configuration can't be null.");
+        ArgumentAssert.isNotEmpty(property, "Property can't be null or empty.");
+        ArgumentAssert.isNotNull(type, "Type can't be null.");
+
+        this.configuration = configuration;
+        this.property = property;
+        this.path = property.split(":");
+        this.type = type;
+    }
+
+    /**
+     * Gets the property name.
+     *
+     * @return the property name.
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Gets the type of the property value.
+     *
+     * @return the property value type.
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Checks whether property exists in the configuration.
+     *
+     * @return {@code true} if property exists, otherwise {@code false}.
+     */
+    public boolean exists() {
+        return getElement() != null;
+    }
+
+    /**
+     * Gets the property value.
+     *
+     * @return the property value or {@code null} if property is not found.
+     * @throws ValueAccessException error to get property value.
+     */
+    @Nullable
+    public T get() throws ValueAccessException {
+        return get((ContextMap) null);
+    }
+
+    /**
+     * Gets the property value.
+     *
+     * @param context the context for evaluating property value.
+     * @return the property value or {@code null} if property is not found.
+     * @throws ValueAccessException error to get property value.
+     */
+    @Nullable
+    public T get(@Nullable ContextMap context) throws ValueAccessException {
+        final Resolution resolved = resolve();
+        if (resolved.element == null) {
+            return null;
+        }
+
+        try {
+            if (resolved.value != null && resolved.value.isCurrent()) {
+                return type.cast(resolved.value.getValue());
+            }
+            return type.cast(ElementUtil.getElementValue(context, resolved.element));
+        }
+        catch (ClassCastException e) {
+            throw new ValueAccessException("Property [" + property
+                    + "] is not of type " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Gets the property value.
+     *
+     * @param defaultValue the default value if property value is {@code null}.
+     * @return the property value or default value.
+     * @throws ValueAccessException error to get property value.
+     */
+    @Nullable
+    public T getOrDefault(@Nullable T defaultValue) throws ValueAccessException {
+        final T value = get();
+        return value != null ? value : defaultValue;
+    }
+
+    private NamedElement getElement() {
+        return resolve().element;
+    }
+
+    private Resolution resolve() {
+        final Configuration current = (configuration instanceof ConfigurationWrapper
+                ? ((ConfigurationWrapper) configuration).getConfiguration() : configuration);
+
+        Resolution result = resolution;
+        if (result == null || result.configuration != current) {
+            ElementIndex.StaticValue value = null;
+            NamedElement element = null;
+            if (current instanceof ConfigurationImpl) {
+                // static value is resolved once for the snapshot
+                final ElementIndex index = ((ConfigurationImpl) current).getElementIndex();
+                value = index.getStaticValue(property);
+                if (value != null) {
+                    element = index.getElements().get(property);
+                }
+            }
+            if (element == null) {
+                element = ElementUtil.getElement(current, path);
+            }
+            result = new Resolution(current, element, value);
+            resolution = result;
+        }
+        return result;
+    }
+
+    // ------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "ConfigKey[" + property + ", " + type.getSimpleName() + "]";
+    }
+
+    /**
+     * The element resolved for the configuration.
+     */
+    private static class Resolution {
+
+        private final Configuration configuration;
+        private final NamedElement element;
+        private final ElementIndex.StaticValue value;
+
+        private Resolution(Configuration configuration, NamedElement element, ElementIndex.StaticValue value) {
+            this.configuration = configuration;
+            this.element = element;
+            this.value = value;
+        }
+    }
+}
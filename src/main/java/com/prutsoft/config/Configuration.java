@@ -19,6 +19,11 @@ import java.util.Set;
 
 /**
  * Represents configuration with it's internal information and properties.
+ * <p>
+ * Collections returned for properties and sets which values don't depend on the context
+ * ({@link #getStringsList}, {@link #getStringsSet}, {@link #getDictionary} and {@link #getValue})
+ * are shared and unmodifiable; copy them to change. Before 1.2.0 they were modifiable,
+ * and the value of the set was a new collection on each call.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2009-12-20
@@ -64,6 +69,16 @@ public interface Configuration extends NamedElement, NamedElementsContainer {
      */
     Collection<Configuration> getIncludedConfigurations();
 
+    /**
+     * Finds the element by its path in this configuration or in included configurations.
+     * Path can be specified as few parts or as one string with parts separated by colons.
+     *
+     * @param path the element path.
+     * @return the found element or {@code null} if not found.
+     */
+    @Nullable
+    NamedElement findElement(String... path);
+
     /**
      * Gets the pojo value.
      *
@@ -75,6 +90,18 @@ public interface Configuration extends NamedElement, NamedElementsContainer {
     @Nullable
     <T> T getPojo(Class<T> clazz, String property);
 
+    /**
+     * Gets the handle for specified property. Property path is resolved once,
+     * so handle is preferable way to read the same property often.
+     *
+     * @param property the property name, parts of path are separated with colons; can't be null or empty.
+     * @param type     the type of the property value; can't be null.
+     * @param <T>      the property value type.
+     * @return the property handle.
+     */
+    @NotNull
+    <T> ConfigKey<T> key(String property, Class<T> type);
+
     /**
      * Gets integer property.
      *
@@ -132,7 +159,7 @@ public interface Configuration extends NamedElement, NamedElementsContainer {
      * Gets strings list property.
      *
      * @param property the property name; can't be null or empty.
-     * @return the strings list property value.
+     * @return the strings list property value, unmodifiable if it doesn't depend on context.
      */
     @Nullable
     List<String> getStringsList(String... property);
@@ -141,7 +168,7 @@ public interface Configuration extends NamedElement, NamedElementsContainer {
      * Gets strings set property.
      *
      * @param property the property name; can't be null or empty.
-     * @return the strings set property value.
+     * @return the strings set property value, unmodifiable if it doesn't depend on context.
      */
     @Nullable
     Set<String> getStringsSet(String... property);
@@ -150,7 +177,7 @@ public interface Configuration extends NamedElement, NamedElementsContainer {
      * Gets dictionary property.
      *
      * @param property the property name; can't be null or empty.
-     * @return the dictionary property value.
+     * @return the dictionary property value, unmodifiable if it doesn't depend on context.
      */
     @Nullable
     Map<String, String> getDictionary(String... property);
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config;
+
+/**
+ * Listener for the changes of reloaded configuration.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-16
+ * @see ReloadableConfiguration#onChange(String, ConfigurationChangeListener)
+ */
+public interface ConfigurationChangeListener {
+
+    /**
+     * Called after configuration was reloaded and listened elements were changed.
+     *
+     * @param configuration the reloaded configuration.
+     * @param diff          the difference between previous and reloaded configuration.
+     */
+    void changed(ReloadableConfiguration configuration, ConfigurationDiff diff);
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config;
+
+import com.prutsoft.config.element.ElementIndex;
+import com.prutsoft.config.element.cache.CachePolicy;
+import com.prutsoft.config.element.control.Condition;
+import com.prutsoft.config.element.control.SwitchElement;
+import com.prutsoft.config.element.expression.Expression;
+import com.prutsoft.config.element.expression.ExpressionElement;
+import com.prutsoft.config.element.expression.SourceAwareExpression;
+import com.prutsoft.config.element.pojo.PojoElement;
+import com.prutsoft.config.element.set.PropertySet;
+import com.prutsoft.config.element.value.Value;
+import com.prutsoft.core.annotation.NotNull;
+import com.prutsoft.core.asserts.ArgumentAssert;
+import com.prutsoft.core.utils.ObjectUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The difference between two configuration snapshots, e.g. before and after reload.
+ * <p>
+ * Difference is found by the full paths of elements, like <code>db:pool:size</code>,
+ * so elements of included configurations are compared too. Elements with the same path
+ * are compared by their own attributes: value of property, source of expression,
+ * conditions of switch, description of set, class and instance policy of pojo.
+ * Change of the nested element doesn't change the set or pojo that contains it,
+ * but {@link #isChanged(String)} tells whether element or any nested element was changed.
+ * Elements that were not reloaded, e.g. elements of not changed included configuration,
+ * are the same instances, so they are not compared.
+ * <p>
+ * Difference is unmodifiable.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-16
+ */
+public final class ConfigurationDiff {
+
+    private static final char PATH_DELIMITER = ':';
+
+    /**
+     * Finds the difference between two configurations.
+     *
+     * @param oldConfiguration the old configuration; can't be null.
+     * @param newConfiguration the new configuration; can't be null.
+     * @return the found difference.
+     */
+    @NotNull
+    public static ConfigurationDiff compute(@NotNull Configuration oldConfiguration,
+                                            @NotNull Configuration newConfiguration) {
+        ArgumentAssert.isNotNull(oldConfiguration, "Old configuration can't be null.");
+        ArgumentAssert.isNotNull(newConfiguration, "New configuration can't be null.");
+
+        // elements are not looked up with index, so they don't change index counters
+        final Map<String, NamedElement> oldElements = getElementIndex(oldConfiguration).getElements();
+        final Map<String, NamedElement> newElements = getElementIndex(newConfiguration).getElements();
+
+        final TreeSet<String> added = new TreeSet<String>();
+        final TreeSet<String> removed = new TreeSet<String>();
+        final TreeSet<String> changed = new TreeSet<String>();
+        for (Map.Entry<String, NamedElement> each : oldElements.entrySet()) {
+            final NamedElement newElement = newElements.get(each.getKey());
+            if (newElement == null) {
+                removed.add(each.getKey());
+            }
+            else if (!isSame(each.getValue(), newElement)) {
+                changed.add(each.getKey());
+            }
+        }
+        for (String each : newElements.keySet()) {
+            if (!oldElements.containsKey(each)) {
+                added.add(each);
+            }
+        }
+        return new ConfigurationDiff(added, removed, changed);
+    }
+
+    private static ElementIndex getElementIndex(Configuration configuration) {
+        if (configuration instanceof ConfigurationWrapper) {
+            configuration = ((ConfigurationWrapper) configuration).getConfiguration();
+        }
+        return (configuration instanceof ConfigurationImpl
+                ? ((ConfigurationImpl) configuration).getElementIndex()
+                : ElementIndex.build(configuration));
+    }
+
+    private static boolean isSame(NamedElement first, NamedElement second) {
+        if (first == second) {
+            return true;
+        }
+        if (first.getClass() != second.getClass()) {
+            return false;
+        }
+
+        if (first instanceof ExpressionElement) {
+            final ExpressionElement firstExpression = (ExpressionElement) first;
+            final ExpressionElement secondExpression = (ExpressionElement) second;
+            return ObjectUtils.equals(firstExpression.getDescription(), secondExpression.getDescription())
+                    && isSame(firstExpression.getCachePolicy(), secondExpression.getCachePolicy())
+                    && isSame(firstExpression.getExpression(), secondExpression.getExpression());
+        }
+        if (first instanceof SwitchElement) {
+            final SwitchElement firstSwitch = (SwitchElement) first;
+            final SwitchElement secondSwitch = (SwitchElement) second;
+            if (!isSame(firstSwitch.getCachePolicy(), secondSwitch.getCachePolicy())) {
+                return false;
+            }
+
+            final List<Condition<Value>> firstConditions = firstSwitch.getConditions();
+            final List<Condition<Value>> secondConditions = secondSwitch.getConditions();
+            if (firstConditions.size() != secondConditions.size()) {
+                return false;
+            }
+            for (int i = 0; i < firstConditions.size(); i++) {
+                final Condition<Value> firstCondition = firstConditions.get(i);
+                final Condition<Value> secondCondition = secondConditions.get(i);
+                if (firstCondition.getClass() != secondCondition.getClass()
+                        || !ObjectUtils.equals(firstCondition.getValue(), secondCondition.getValue())
+                        || !isSame(firstCondition.getExpression(), secondCondition.getExpression())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (first instanceof PropertySet) {
+            return ObjectUtils.equals(((PropertySet) first).getDescription(), ((PropertySet) second).getDescription());
+        }
+        if (first instanceof PojoElement) {
+            final PojoElement firstPojo = (PojoElement) first;
+            final PojoElement secondPojo = (PojoElement) second;
+            return firstPojo.getPojoClass() == secondPojo.getPojoClass()
+                    && firstPojo.getInstancePolicy() == secondPojo.getInstancePolicy()
+                    && ObjectUtils.equals(firstPojo.getDescription(), secondPojo.getDescription());
+        }
+        // properties and other elements are compared with equals()
+        return first.equals(second);
+    }
+
+    private static boolean isSame(Expression first, Expression second) {
+        if (first == second) {
+            return true;
+        }
+        if (first instanceof SourceAwareExpression && second instanceof SourceAwareExpression) {
+            return first.getClass() == second.getClass() && ObjectUtils.equals(
+                    ((SourceAwareExpression) first).getSource(), ((SourceAwareExpression) second).getSource());
+        }
+        return false;
+    }
+
+    private static boolean isSame(CachePolicy first, CachePolicy second) {
+        if (first == null || second == null) {
+            return first == second;
+        }
+        return first.getMaxSize() == second.getMaxSize() && first.getTimeToLive() == second.getTimeToLive();
+    }
+
+    // ------------------------------------------------------------
+
+    private final TreeSet<String> added;
+    private final TreeSet<String> removed;
+    private final TreeSet<String> changed;
+
+    private ConfigurationDiff(TreeSet<String> added, TreeSet<String> removed, TreeSet<String> changed) {
+        this.added = added;
+        this.removed = removed;
+        this.changed = changed;
+    }
+
+    /**
+     * Gets the paths of added elements.
+     *
+     * @return the ordered unmodifiable set of paths.
+     */
+    @NotNull
+    public Set<String> getAdded() {
+        return Collections.unmodifiableSet(added);
+    }
+
+    /**
+     * Gets the paths of removed elements.
+     *
+     * @return the ordered unmodifiable set of paths.
+     */
+    @NotNull
+    public Set<String> getRemoved() {
+        return Collections.unmodifiableSet(removed);
+    }
+
+    /**
+     * Gets the paths of elements that exist in both configurations, but were changed.
+     *
+     * @return the ordered unmodifiable set of paths.
+     */
+    @NotNull
+    public Set<String> getChanged() {
+        return Collections.unmodifiableSet(changed);
+    }
+
+    /**
+     * Checks whether configurations are the same.
+     *
+     * @return {@code true} if there are no added, removed or changed elements.
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    /**
+     * Checks whether element with specified path or any element nested into it
+     * was added, removed or changed.
+     *
+     * @param path the full element path, parts are separated by colons.
+     * @return {@code true} if element was changed.
+     */
+    public boolean isChanged(String path) {
+        return contains(changed, path) || contains(added, path) || contains(removed, path);
+    }
+
+    private static boolean contains(TreeSet<String> paths, String path) {
+        if (paths.isEmpty()) {
+            return false;
+        }
+        if (paths.contains(path)) {
+            return true;
+        }
+        // nested paths are the first paths after the prefix in the ordered set
+        final String prefix = path + PATH_DELIMITER;
+        final String next = paths.ceiling(prefix);
+        return next != null && next.startsWith(prefix);
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder(100).append("ConfigurationDiff[")
+                .append("added=").append(added)
+                .append(", removed=").append(removed)
+                .append(", changed=").append(changed)
+                .append(']').toString();
+    }
+}
@@ -7,6 +7,7 @@
 
 package com.prutsoft.config;
 
+import com.prutsoft.config.element.ElementIndex;
 import com.prutsoft.config.element.ElementUtil;
 import com.prutsoft.config.element.metadata.Metadata;
 import com.prutsoft.config.element.reload.ReloadPolicy;
@@ -19,6 +20,16 @@ import java.util.*;
 
 /**
  * The configuration implementation.
+ * <p>
+ * Elements are looked up with the flat {@link ElementIndex} that includes elements
+ * of included configurations. Index is built by {@link com.prutsoft.config.parser.ConfigurationBuilder}
+ * and is rebuilt on the next lookup after elements or included configurations of this
+ * configuration are changed. Changes of the nested containers or included configurations
+ * are not tracked, so they should be done before configuration is used.
+ * <p>
+ * Values of static elements, i.e. properties and sets of properties, are resolved
+ * when index is built, so reading them doesn't resolve or copy values again.
+ * Collection values of static elements are unmodifiable.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2009-12-20
@@ -33,6 +44,8 @@ public class ConfigurationImpl implements Configuration {
     private List<Configuration> configurations = new ArrayList<Configuration>();
     private Map<String, NamedElement> elements = new HashMap<String, NamedElement>();
 
+    private volatile ElementIndex index;
+
     public ConfigurationImpl(String name) {
         this.name = name;
     }
@@ -75,7 +88,43 @@ public class ConfigurationImpl implements Configuration {
     }
 
     public Collection<Configuration> getIncludedConfigurations() {
-        return configurations;
+        return Collections.unmodifiableList(configurations);
+    }
+
+    /**
+     * Adds the included configuration. Included configurations are checked
+     * in the order they were added.
+     *
+     * @param configuration the configuration to include; can't be null.
+     */
+    public void addIncludedConfiguration(Configuration configuration) {
+        ArgumentAssert.isNotNull(configuration, "Configuration can't be null.");
+        configurations.add(configuration);
+        index = null;
+    }
+
+    /**
+     * Gets the index of elements of this and included configurations.
+     * If index is not built yet, than it's built.
+     *
+     * @return the elements index.
+     */
+    public ElementIndex getElementIndex() {
+        ElementIndex result = index;
+        if (result == null) {
+            result = ElementIndex.build(this);
+            index = result;
+        }
+        return result;
+    }
+
+    /**
+     * Sets the index of elements of this and included configurations.
+     *
+     * @param index the elements index.
+     */
+    public void setElementIndex(ElementIndex index) {
+        this.index = index;
     }
 
     public NamedElement getElement(String name) {
@@ -90,107 +139,131 @@ public class ConfigurationImpl implements Configuration {
         ArgumentAssert.isNotNull(element, "Element can't be null.");
         if (hasElement(element.getName())) return false;
         elements.put(element.getName(), element);
+        index = null;
         return true;
     }
 
     public boolean removeElement(String name) {
-        return (elements.remove(name) != null);
+        if (elements.remove(name) != null) {
+            index = null;
+            return true;
+        }
+        return false;
     }
 
     public boolean hasElement(String name) {
         return elements.containsKey(name);
     }
 
+    public NamedElement findElement(String... path) {
+        if (path == null || path.length == 0) {
+            return null;
+        }
+        return getElementIndex().get(ElementIndex.path(path));
+    }
+
     public <T> T getPojo(Class<T> clazz, String property) {
         return null;
     }
 
+    public <T> ConfigKey<T> key(String property, Class<T> type) {
+        return new ConfigKey<T>(this, property, type);
+    }
+
     public Integer getInteger(String... property) {
-        return (Integer) ElementUtil.getElementValue(this, property);
+        return (Integer) getElementValue(null, property);
     }
 
     public Long getLong(String... property) {
-        return (Long) ElementUtil.getElementValue(this, property);
+        return (Long) getElementValue(null, property);
     }
 
     public Boolean getBoolean(String... property) {
-        return (Boolean) ElementUtil.getElementValue(this, property);
+        return (Boolean) getElementValue(null, property);
     }
 
     public Float getFloat(String... property) {
-        return (Float) ElementUtil.getElementValue(this, property);
+        return (Float) getElementValue(null, property);
     }
 
     public Double getDouble(String... property) {
-        return (Double) ElementUtil.getElementValue(this, property);
+        return (Double) getElementValue(null, property);
     }
 
     public String getString(String... property) {
+        final ElementIndex.StaticValue value = getStaticValue(property);
+        if (value != null) {
+            return value.getString();
+        }
         Object result = ElementUtil.getElementValue(this, property);
         return result != null ? String.valueOf(result) : null;
     }
 
     @SuppressWarnings(Warnings.Unchecked)
     public List<String> getStringsList(String... property) {
-        return (List<String>) ElementUtil.getElementValue(this, property);
+        return (List<String>) getElementValue(null, property);
     }
 
     @SuppressWarnings(Warnings.Unchecked)
     public Set<String> getStringsSet(String... property) {
-        return (Set<String>) ElementUtil.getElementValue(this, property);
+        return (Set<String>) getElementValue(null, property);
     }
 
     @SuppressWarnings(Warnings.Unchecked)
     public Map<String, String> getDictionary(String... property) {
-        return (Map<String, String>) ElementUtil.getElementValue(this, property);
+        return (Map<String, String>) getElementValue(null, property);
     }
 
     public Object getValue(String... property) {
-        return ElementUtil.getElementValue(this, property);
+        return getElementValue(null, property);
     }
 
     public Integer getInteger(String property, ContextMap context) {
-        return (Integer) ElementUtil.getElementValue(context, this, property);
+        return (Integer) getElementValue(context, property);
     }
 
     public Long getLong(String property, ContextMap context) {
-        return (Long) ElementUtil.getElementValue(context, this, property);
+        return (Long) getElementValue(context, property);
     }
 
     public Boolean getBoolean(String property, ContextMap context) {
-        return (Boolean) ElementUtil.getElementValue(context, this, property);
+        return (Boolean) getElementValue(context, property);
     }
 
     public Float getFloat(String property, ContextMap context) {
-        return (Float) ElementUtil.getElementValue(context, this, property);
+        return (Float) getElementValue(context, property);
     }
 
     public Double getDouble(String property, ContextMap context) {
-        return (Double) ElementUtil.getElementValue(context, this, property);
+        return (Double) getElementValue(context, property);
     }
 
     public String getString(String property, ContextMap context) {
+        final ElementIndex.StaticValue value = getStaticValue(property);
+        if (value != null) {
+            return value.getString();
+        }
         Object result = ElementUtil.getElementValue(context, this, property);
         return result != null ? String.valueOf(result) : null;
     }
 
     @SuppressWarnings(Warnings.Unchecked)
     public List<String> getStringsList(String property, ContextMap context) {
-        return (List<String>) ElementUtil.getElementValue(context, this, property);
+        return (List<String>) getElementValue(context, property);
     }
 
     @SuppressWarnings(Warnings.Unchecked)
     public Set<String> getStringsSet(String property, ContextMap context) {
-        return (Set<String>) ElementUtil.getElementValue(context, this, property);
+        return (Set<String>) getElementValue(context, property);
     }
 
     @SuppressWarnings(Warnings.Unchecked)
     public Map<String, String> getDictionary(String property, ContextMap context) {
-        return (Map<String, String>) ElementUtil.getElementValue(context, this, property);
+        return (Map<String, String>) getElementValue(context, property);
     }
 
     public Object getValue(String property, ContextMap context) {
-        return ElementUtil.getElementValue(context, this, property);
+        return getElementValue(context, property);
     }
 
     public Integer getInteger(String property, Integer defaultValue) {
@@ -243,6 +316,29 @@ public class ConfigurationImpl implements Configuration {
         return value != null ? value : defaultValue;
     }
 
+    /**
+     * Gets the value of element; value of static element is taken from the elements index,
+     * so it's not resolved on each call.
+     *
+     * @param context  the evaluation context, can be null.
+     * @param property the element path.
+     * @return the element value or {@code null} if element is not found.
+     */
+    private Object getElementValue(ContextMap context, String... property) {
+        final ElementIndex.StaticValue value = getStaticValue(property);
+        if (value != null) {
+            return value.getValue();
+        }
+        return ElementUtil.getElementValue(context, this, property);
+    }
+
+    private ElementIndex.StaticValue getStaticValue(String... property) {
+        if (property == null || property.length == 0) {
+            return null;
+        }
+        return getElementIndex().getStaticValue(ElementIndex.path(property));
+    }
+
     // ------------------------------------------------
 
     public int hashCode() {
@@ -9,18 +9,32 @@ package com.prutsoft.config;
 
 import com.prutsoft.config.element.metadata.Metadata;
 import com.prutsoft.config.element.reload.ReloadPolicy;
+import com.prutsoft.core.annotation.NotNull;
+import com.prutsoft.core.annotation.Nullable;
 import com.prutsoft.core.asserts.ArgumentAssert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This is configuration wrapper. Used to replace old configuration with new one
- * while reload. Use concurrent locking to be safe on substitute configuration.
+ * while reload.
+ * <p>
+ * Wrapped configuration is kept in the atomic reference, so readers never lock:
+ * each call is delegated to the configuration snapshot that is current at the moment of call,
+ * and {@link #setConfiguration(Configuration)} publishes new snapshot atomically.
+ * Calls that started before reload are completed on the old snapshot.
+ * <p>
+ * Listeners registered with {@link #onChange(String, ConfigurationChangeListener)} are called
+ * after new snapshot is published, only if listened elements were changed. The difference
+ * between snapshots is found only if there are listeners.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2010-01-07
@@ -29,463 +43,314 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  */
 public class ReloadableConfiguration implements Configuration, ConfigurationWrapper, Serializable {
 
+    private static final Logger log = LoggerFactory.getLogger(ReloadableConfiguration.class);
+
+    /**
+     * The current configuration snapshot.
+     */
+    private final AtomicReference<Configuration> configuration;
+
     /**
-     * The read-write lock used to lock read of configuration while
-     * it is locked on reloading.
+     * The fingerprint of the resource content current configuration was loaded from.
      */
-    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private volatile long fingerprint;
 
-    private Configuration configuration;
+    /**
+     * The change listeners, listeners are not serialized.
+     */
+    private transient volatile List<ChangeSubscription> subscriptions;
 
     public ReloadableConfiguration(Configuration configuration) {
-        this.configuration = configuration;
+        this.configuration = new AtomicReference<Configuration>(configuration);
+    }
+
+    /**
+     * Adds the listener that is called when any element of configuration is changed.
+     *
+     * @param listener the listener; can't be null.
+     */
+    public void onChange(@NotNull ConfigurationChangeListener listener) {
+        onChange(null, listener);
+    }
+
+    /**
+     * Adds the listener that is called when the element with specified path or any element
+     * nested into it is added, removed or changed.
+     *
+     * @param path     the full element path, parts are separated by colons, e.g. <code>db:pool:size</code>;
+     *                 if null, than listener is called on any change.
+     * @param listener the listener; can't be null.
+     */
+    public void onChange(@Nullable String path, @NotNull ConfigurationChangeListener listener) {
+        ArgumentAssert.isNotNull(listener, "Listener can't be null.");
+        synchronized (this.configuration) {
+            if (subscriptions == null) {
+                subscriptions = new CopyOnWriteArrayList<ChangeSubscription>();
+            }
+            subscriptions.add(new ChangeSubscription(path, listener));
+        }
+    }
+
+    /**
+     * Removes the listener from all paths it listens.
+     *
+     * @param listener the listener to remove.
+     */
+    public void removeChangeListener(ConfigurationChangeListener listener) {
+        final List<ChangeSubscription> list = subscriptions;
+        if (list != null) {
+            for (ChangeSubscription each : list) {
+                if (each.listener == listener) {
+                    list.remove(each);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the fingerprint of the resource content current configuration was loaded from.
+     *
+     * @return the resource content fingerprint.
+     * @see com.prutsoft.config.resource.FingerprintedResource#getFingerprint()
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Sets the fingerprint of the resource content current configuration was loaded from.
+     *
+     * @param fingerprint the resource content fingerprint.
+     */
+    public void setFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
     }
 
     public Configuration getConfiguration() {
-        return configuration;
+        return configuration.get();
     }
 
     public void setConfiguration(Configuration newConfiguration) {
         ArgumentAssert.isNotNull(newConfiguration, "Configuration can't be null.");
+        final Configuration oldConfiguration = configuration.getAndSet(newConfiguration);
 
-        try {
-            readWriteLock.writeLock().lock();
-            this.configuration = newConfiguration;
+        final List<ChangeSubscription> list = subscriptions;
+        if (list == null || list.isEmpty() || oldConfiguration == newConfiguration) {
+            return;
         }
-        finally {
-            readWriteLock.writeLock().unlock();
+
+        final ConfigurationDiff diff = ConfigurationDiff.compute(oldConfiguration, newConfiguration);
+        if (diff.isEmpty()) {
+            return;
+        }
+        for (ChangeSubscription each : list) {
+            if (each.path == null || diff.isChanged(each.path)) {
+                try {
+                    each.listener.changed(this, diff);
+                }
+                catch (RuntimeException e) {
+                    log.error("Error to process change of configuration [" + this + "]", e);
+                }
+            }
         }
     }
 
     public String getName() {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getName();
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getName();
     }
 
     public Version getVersion() {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getVersion();
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getVersion();
     }
 
     public Metadata getMetadata() {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getMetadata();
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getMetadata();
     }
 
     public ReloadPolicy getReloadPolicy() {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getReloadPolicy();
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getReloadPolicy();
     }
 
     public Collection<Configuration> getIncludedConfigurations() {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getIncludedConfigurations();
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getIncludedConfigurations();
+    }
+
+    public NamedElement findElement(String... path) {
+        return configuration.get().findElement(path);
     }
 
     public <T> T getPojo(Class<T> clazz, String property) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getPojo(clazz, property);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getPojo(clazz, property);
+    }
+
+    public <T> ConfigKey<T> key(String property, Class<T> type) {
+        // the handle is bound to this wrapper, so it follows reloads
+        return new ConfigKey<T>(this, property, type);
     }
 
     public Integer getInteger(String... property) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getInteger(property);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getInteger(property);
     }
 
     public Long getLong(String... property) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getLong(property);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getLong(property);
     }
 
     public Boolean getBoolean(String... property) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getBoolean(property);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getBoolean(property);
     }
 
     public Float getFloat(String... property) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getFloat(property);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getFloat(property);
     }
 
     public Double getDouble(String... property) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getDouble(property);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getDouble(property);
     }
 
     public String getString(String... property) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getString(property);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getString(property);
     }
 
     public List<String> getStringsList(String... property) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getStringsList(property);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getStringsList(property);
     }
 
     public Set<String> getStringsSet(String... property) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getStringsSet(property);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getStringsSet(property);
     }
 
     public Map<String, String> getDictionary(String... property) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getDictionary(property);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getDictionary(property);
     }
 
     public Object getValue(String... property) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getValue(property);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getValue(property);
     }
 
     public Integer getInteger(String property, ContextMap context) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getInteger(property, context);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getInteger(property, context);
     }
 
     public Long getLong(String property, ContextMap context) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getLong(property, context);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getLong(property, context);
     }
 
     public Boolean getBoolean(String property, ContextMap context) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getBoolean(property, context);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getBoolean(property, context);
     }
 
     public Float getFloat(String property, ContextMap context) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getFloat(property, context);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getFloat(property, context);
     }
 
     public Double getDouble(String property, ContextMap context) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getDouble(property, context);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getDouble(property, context);
     }
 
     public String getString(String property, ContextMap context) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getString(property, context);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getString(property, context);
     }
 
     public List<String> getStringsList(String property, ContextMap context) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getStringsList(property, context);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getStringsList(property, context);
     }
 
     public Set<String> getStringsSet(String property, ContextMap context) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getStringsSet(property, context);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getStringsSet(property, context);
     }
 
     public Map<String, String> getDictionary(String property, ContextMap context) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getDictionary(property, context);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getDictionary(property, context);
     }
 
     public Object getValue(String property, ContextMap context) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getValue(property, context);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getValue(property, context);
     }
 
     public Integer getInteger(String property, Integer defaultValue) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getInteger(property, defaultValue);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getInteger(property, defaultValue);
     }
 
     public Long getLong(String property, Long defaultValue) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getLong(property, defaultValue);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getLong(property, defaultValue);
     }
 
     public Boolean getBoolean(String property, Boolean defaultValue) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getBoolean(property, defaultValue);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getBoolean(property, defaultValue);
     }
 
     public Float getFloat(String property, Float defaultValue) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getFloat(property, defaultValue);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getFloat(property, defaultValue);
     }
 
     public Double getDouble(String property, Double defaultValue) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getDouble(property, defaultValue);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getDouble(property, defaultValue);
     }
 
     public String getString(String property, String defaultValue) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getString(property, defaultValue);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getString(property, defaultValue);
     }
 
     public List<String> getStringsList(String property, List<String> defaultValue) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getStringsList(property, defaultValue);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getStringsList(property, defaultValue);
     }
 
     public Set<String> getStringsSet(String property, Set<String> defaultValue) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getStringsSet(property, defaultValue);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getStringsSet(property, defaultValue);
     }
 
     public Map<String, String> getDictionary(String property, Map<String, String> defaultValue) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getDictionary(property, defaultValue);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getDictionary(property, defaultValue);
     }
 
     public Object getValue(String property, Map<String, String> defaultValue) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getValue(property, defaultValue);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getValue(property, defaultValue);
     }
 
     public NamedElement getElement(String name) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getElement(name);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getElement(name);
     }
 
     public Collection<NamedElement> getElements() {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.getElements();
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().getElements();
     }
 
     public boolean addElement(NamedElement element) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.addElement(element);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().addElement(element);
     }
 
     public boolean removeElement(String name) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.removeElement(name);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().removeElement(name);
     }
 
     public boolean hasElement(String name) {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.hasElement(name);
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().hasElement(name);
     }
 
     // ------------------------------------------------
 
     public int hashCode() {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.hashCode();
-        }
-        finally {
-            readWriteLock.readLock().unlock();
-        }
+        return configuration.get().hashCode();
     }
 
     public String toString() {
-        readWriteLock.readLock().lock();
-        try {
-            return configuration.toString();
-        }
-        finally {
-            readWriteLock.readLock().unlock();
+        return configuration.get().toString();
+    }
+
+    // ------------------------------------------------
+
+    /**
+     * The listener of the element path.
+     */
+    private static class ChangeSubscription {
+
+        private final String path;
+        private final ConfigurationChangeListener listener;
+
+        private ChangeSubscription(String path, ConfigurationChangeListener listener) {
+            this.path = path;
+            this.listener = listener;
         }
     }
 }
@@ -15,11 +15,15 @@ import java.io.Serializable;
 /**
  * Represents the configuration version number.
  * Version type is unmodifiable and serializable.
+ * <p>
+ * Versions are ordered by major, minor number and name. Numeric parts are compared
+ * as numbers, so <code>1.10.0</code> is greater than <code>1.9.0</code>;
+ * numeric part is less than non-numeric one, and non-numeric parts are compared as strings.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2009-12-20
  */
-public class Version implements Serializable {
+public class Version implements Serializable, Comparable<Version> {
 
     /**
      * Parses the string that contains version number.
@@ -42,17 +46,26 @@ public class Version implements Serializable {
     /**
      * The version number.
      */
-    private String name;
+    private final String name;
 
     /**
      * The version major number.
      */
-    private String major;
+    private final String major;
 
     /**
      * The version minor number.
      */
-    private String minor;
+    private final String minor;
+
+    /**
+     * The numeric values of major, minor number and name; -1 if part is not a number.
+     */
+    private final int majorNumber;
+    private final int minorNumber;
+    private final int nameNumber;
+
+    private final int hash;
 
     /**
      * Constructs new object with specified name, major and minor version.
@@ -65,6 +78,10 @@ public class Version implements Serializable {
         this.name = name;
         this.major = major;
         this.minor = minor;
+        this.majorNumber = toNumber(major);
+        this.minorNumber = toNumber(minor);
+        this.nameNumber = toNumber(name);
+        this.hash = ObjectUtils.hashCode(name, major, minor);
     }
 
     public String getName() {
@@ -79,6 +96,60 @@ public class Version implements Serializable {
         return minor;
     }
 
+    /**
+     * Gets the major number as integer.
+     *
+     * @return the major number or -1 if it's not a number.
+     */
+    public int getMajorNumber() {
+        return majorNumber;
+    }
+
+    /**
+     * Gets the minor number as integer.
+     *
+     * @return the minor number or -1 if it's not a number.
+     */
+    public int getMinorNumber() {
+        return minorNumber;
+    }
+
+    public int compareTo(Version other) {
+        int result = compare(major, majorNumber, other.major, other.majorNumber);
+        if (result == 0) {
+            result = compare(minor, minorNumber, other.minor, other.minorNumber);
+        }
+        if (result == 0) {
+            result = compare(name, nameNumber, other.name, other.nameNumber);
+        }
+        return result;
+    }
+
+    private static int compare(String part, int number, String otherPart, int otherNumber) {
+        if (number != otherNumber) {
+            if (number == -1) return 1;
+            if (otherNumber == -1) return -1;
+            return (number < otherNumber ? -1 : 1);
+        }
+        // the same numbers can be written differently, e.g. 1 and 01
+        if (part == null) {
+            return (otherPart == null ? 0 : -1);
+        }
+        return (otherPart == null ? 1 : part.compareTo(otherPart));
+    }
+
+    private static int toNumber(String part) {
+        if (part == null || part.length() == 0 || part.length() > 9) {
+            return -1;
+        }
+        for (int i = 0; i < part.length(); i++) {
+            if (!Character.isDigit(part.charAt(i))) {
+                return -1;
+            }
+        }
+        return Integer.parseInt(part);
+    }
+
     // ----------------------------------------------------------------
 
     @Override
@@ -91,6 +162,11 @@ public class Version implements Serializable {
                 ObjectUtils.equals(minor, other.minor);
     }
 
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
     @Override
     public String toString() {
         return new StringBuilder(50).append("Version[")
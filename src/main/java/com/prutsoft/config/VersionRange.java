@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config;
+
+import com.prutsoft.core.annotation.NotNull;
+import com.prutsoft.core.annotation.Nullable;
+import com.prutsoft.core.asserts.ArgumentAssert;
+
+import java.io.Serializable;
+
+/**
+ * Represents the range of configuration versions.
+ * Range type is unmodifiable and serializable.
+ * <p>
+ * Range is parsed from the space separated list of constraints, e.g. <code>&gt;=1.2.0 &lt;2.0.0</code>.
+ * Supported constraints are <code>&gt;</code>, <code>&gt;=</code>, <code>&lt;</code>, <code>&lt;=</code>
+ * and <code>=</code>; version without operator means exact version.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-14
+ */
+public class VersionRange implements Serializable {
+
+    /**
+     * Parses the range of versions.
+     *
+     * @param range the range, e.g. <code>&gt;=1.2.0 &lt;2.0.0</code>; can't be null or empty.
+     * @return the parsed range.
+     */
+    @NotNull
+    public static VersionRange parse(String range) {
+        ArgumentAssert.isNotEmpty(range, "Version range is required.");
+
+        Version lower = null;
+        Version upper = null;
+        boolean lowerInclusive = false;
+        boolean upperInclusive = false;
+
+        for (String each : range.trim().split("\\s+")) {
+            if (each.startsWith(">=")) {
+                lower = Version.parse(each.substring(2));
+                lowerInclusive = true;
+            }
+            else if (each.startsWith(">")) {
+                lower = Version.parse(each.substring(1));
+                lowerInclusive = false;
+            }
+            else if (each.startsWith("<=")) {
+                upper = Version.parse(each.substring(2));
+                upperInclusive = true;
+            }
+            else if (each.startsWith("<")) {
+                upper = Version.parse(each.substring(1));
+                upperInclusive = false;
+            }
+            else {
+                lower = upper = Version.parse(each.startsWith("=") ? each.substring(1) : each);
+                lowerInclusive = upperInclusive = true;
+            }
+        }
+        return new VersionRange(lower, lowerInclusive, upper, upperInclusive);
+    }
+
+    /**
+     * Creates the range of versions with specified major number, e.g. <code>&gt;=1.0.0 &lt;2.0.0</code>.
+     *
+     * @param major the major number; can't be negative.
+     * @return the created range.
+     */
+    @NotNull
+    public static VersionRange major(int major) {
+        ArgumentAssert.isTrue(major >= 0, "Major number can't be negative.");
+        return new VersionRange(
+                new Version("0", String.valueOf(major), "0"), true,
+                new Version("0", String.valueOf(major + 1), "0"), false);
+    }
+
+    // ----------------------------------------------------------------------
+
+    private final Version lower;
+    private final boolean lowerInclusive;
+    private final Version upper;
+    private final boolean upperInclusive;
+
+    /**
+     * Constructs new range.
+     *
+     * @param lower          the lower bound, {@code null} if range has no lower bound.
+     * @param lowerInclusive whether lower bound is in range.
+     * @param upper          the upper bound, {@code null} if range has no upper bound.
+     * @param upperInclusive whether upper bound is in range.
+     */
+    public VersionRange(@Nullable Version lower, boolean lowerInclusive,
+                        @Nullable Version upper, boolean upperInclusive) {
+        this.lower = lower;
+        this.lowerInclusive = lowerInclusive;
+        this.upper = upper;
+        this.upperInclusive = upperInclusive;
+    }
+
+    @Nullable
+    public Version getLower() {
+        return lower;
+    }
+
+    public boolean isLowerInclusive() {
+        return lowerInclusive;
+    }
+
+    @Nullable
+    public Version getUpper() {
+        return upper;
+    }
+
+    public boolean isUpperInclusive() {
+        return upperInclusive;
+    }
+
+    /**
+     * Checks whether range is empty, i.e. no version is in range.
+     *
+     * @return {@code true} if range is empty.
+     */
+    public boolean isEmpty() {
+        if (lower == null || upper == null) {
+            return false;
+        }
+        final int result = lower.compareTo(upper);
+        return result > 0 || (result == 0 && !(lowerInclusive && upperInclusive));
+    }
+
+    /**
+     * Checks whether version is in range.
+     *
+     * @param version the version to check; can't be null.
+     * @return {@code true} if version is in range.
+     */
+    public boolean contains(@NotNull Version version) {
+        ArgumentAssert.isNotNull(version, "Version can't be null.");
+        if (lower != null) {
+            final int result = version.compareTo(lower);
+            if (result < 0 || (result == 0 && !lowerInclusive)) {
+                return false;
+            }
+        }
+        if (upper != null) {
+            final int result = version.compareTo(upper);
+            if (result > 0 || (result == 0 && !upperInclusive)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ----------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder(50).append("VersionRange[");
+        if (lower != null) {
+            result.append(lowerInclusive ? ">=" : ">").append(lower.getMajor())
+                    .append('.').append(lower.getMinor()).append('.').append(lower.getName());
+        }
+        if (upper != null) {
+            if (lower != null) {
+                result.append(' ');
+            }
+            result.append(upperInclusive ? "<=" : "<").append(upper.getMajor())
+                    .append('.').append(upper.getMinor()).append('.').append(upper.getName());
+        }
+        return result.append(']').toString();
+    }
+}
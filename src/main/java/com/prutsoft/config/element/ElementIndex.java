@@ -0,0 +1,435 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.element;
+
+import com.prutsoft.config.Configuration;
+import com.prutsoft.config.NamedElement;
+import com.prutsoft.config.NamedElementsContainer;
+import com.prutsoft.config.element.property.Property;
+import com.prutsoft.config.element.set.PropertySet;
+import com.prutsoft.config.element.value.Value;
+import com.prutsoft.core.annotation.NotNull;
+import com.prutsoft.core.annotation.Nullable;
+import com.prutsoft.core.asserts.ArgumentAssert;
+import com.prutsoft.core.code.Warnings;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The flat index of configuration elements. Maps the full path of each element,
+ * with parts separated by colons (e.g. <code>db:pool:size</code>), to the element.
+ * <p>
+ * Index contains elements of the configuration and all included configurations.
+ * Precedence is applied when index is built: element of the configuration hides
+ * the element with the same path in included configurations, and included configuration
+ * hides the elements of configurations included after it. So the lookup of any path,
+ * found or not, is a single hash map lookup however deep includes are nested.
+ * <p>
+ * As index contains all paths of the configuration, the missed lookup means that element
+ * is definitely absent, so there is no need in separate negative cache or Bloom filter.
+ * Index can count found and missed lookups. Counting is off by default, as it writes
+ * shared memory on each lookup; it's turned on with {@link #setStatisticsEnabled(boolean)}
+ * for indexes built after that. As index is built for each configuration snapshot,
+ * counters start from zero after the configuration is reloaded.
+ * <p>
+ * Index also keeps the resolved values of static elements, i.e. properties and sets that contain
+ * only properties and static sets, as their values don't depend on the evaluation context.
+ * Values are resolved once when index is built; collections are wrapped to be unmodifiable,
+ * so they are returned without copying. Resolved value remembers what it was resolved from,
+ * and is not used after the property value or the set elements are changed.
+ * <p>
+ * Index is unmodifiable.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-04
+ */
+public final class ElementIndex {
+
+    private static final char PATH_DELIMITER = ':';
+
+    private static volatile boolean statisticsEnabled;
+
+    /**
+     * Turns on or off counting of lookups for indexes built after this call.
+     *
+     * @param enabled whether to count lookups.
+     */
+    public static void setStatisticsEnabled(boolean enabled) {
+        statisticsEnabled = enabled;
+    }
+
+    public static boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * Builds the index for specified configuration.
+     *
+     * @param configuration the configuration to build index for; can't be null.
+     * @return the built index.
+     */
+    @NotNull
+    public static ElementIndex build(@NotNull Configuration configuration) {
+        ArgumentAssert.isNotNull(configuration, "Configuration can't be null.");
+
+        final Map<String, NamedElement> elements = new HashMap<String, NamedElement>();
+        addConfiguration(elements, configuration);
+
+        final Map<String, StaticValue> values = new HashMap<String, StaticValue>();
+        final Map<NamedElement, StaticValue> resolved = new IdentityHashMap<NamedElement, StaticValue>();
+        for (Map.Entry<String, NamedElement> each : elements.entrySet()) {
+            final StaticValue value = resolveStatic(each.getValue(), resolved);
+            if (value != null) {
+                values.put(each.getKey(), value);
+            }
+        }
+        return new ElementIndex(elements, values);
+    }
+
+    /**
+     * Joins path parts to the full path.
+     *
+     * @param path the path parts.
+     * @return the full path.
+     */
+    @NotNull
+    public static String path(String... path) {
+        if (path.length == 1) {
+            return path[0];
+        }
+
+        final StringBuilder result = new StringBuilder(path.length * 10);
+        for (int i = 0; i < path.length; i++) {
+            if (i != 0) {
+                result.append(PATH_DELIMITER);
+            }
+            result.append(path[i]);
+        }
+        return result.toString();
+    }
+
+    private static void addConfiguration(Map<String, NamedElement> index, Configuration configuration) {
+        addElements(index, null, configuration);
+        for (Configuration each : configuration.getIncludedConfigurations()) {
+            addConfiguration(index, each);
+        }
+    }
+
+    private static void addElements(Map<String, NamedElement> index, String prefix,
+                                    NamedElementsContainer container) {
+        for (NamedElement each : container.getElements()) {
+            final String path = (prefix != null ? prefix + PATH_DELIMITER + each.getName() : each.getName());
+            if (!index.containsKey(path)) {
+                index.put(path, each);
+            }
+            if (each instanceof NamedElementsContainer) {
+                addElements(index, path, (NamedElementsContainer) each);
+            }
+        }
+    }
+
+    /**
+     * Resolves the value of element if it's static.
+     *
+     * @param element  the element to resolve.
+     * @param resolved the already resolved elements, values of not static elements are null.
+     * @return the resolved value or {@code null} if element is not static.
+     */
+    @SuppressWarnings(Warnings.Unchecked)
+    private static StaticValue resolveStatic(NamedElement element, Map<NamedElement, StaticValue> resolved) {
+        if (resolved.containsKey(element)) {
+            return resolved.get(element);
+        }
+
+        StaticValue result = null;
+        if (element instanceof Property) {
+            result = new StaticValue((Property) element);
+        }
+        else if (element instanceof PropertySet) {
+            final PropertySet propertySet = (PropertySet) element;
+            final NamedElement[] members = propertySet.getElements().toArray(
+                    new NamedElement[propertySet.getElements().size()]);
+            final StaticValue[] children = new StaticValue[members.length];
+            final Set<Object> set = new HashSet<Object>();
+            boolean isStatic = true;
+            for (int i = 0; i < members.length; i++) {
+                children[i] = resolveStatic(members[i], resolved);
+                if (children[i] == null) {
+                    isStatic = false;
+                    break;
+                }
+                set.add(children[i].getValue());
+            }
+            if (isStatic) {
+                result = new StaticValue(propertySet, members, children, Collections.unmodifiableSet(set));
+            }
+        }
+        resolved.put(element, result);
+        return result;
+    }
+
+    @SuppressWarnings(Warnings.Unchecked)
+    private static Object unmodifiable(Object value) {
+        if (value instanceof List) {
+            return Collections.unmodifiableList((List) value);
+        }
+        if (value instanceof Set) {
+            return Collections.unmodifiableSet((Set) value);
+        }
+        if (value instanceof Map) {
+            return Collections.unmodifiableMap((Map) value);
+        }
+        return value;
+    }
+
+    // ------------------------------------------------------------
+
+    private final Map<String, NamedElement> elements;
+    private final Map<String, StaticValue> values;
+
+    // null if lookups are not counted
+    private final StripedCounter hits;
+    private final StripedCounter misses;
+
+    private ElementIndex(Map<String, NamedElement> elements, Map<String, StaticValue> values) {
+        this.elements = elements;
+        this.values = values;
+        this.hits = (statisticsEnabled ? new StripedCounter() : null);
+        this.misses = (statisticsEnabled ? new StripedCounter() : null);
+    }
+
+    /**
+     * Gets the element by its full path.
+     *
+     * @param path the full element path, parts are separated by colons.
+     * @return the found element or {@code null} if not found.
+     */
+    @Nullable
+    public NamedElement get(String path) {
+        final NamedElement element = elements.get(path);
+        if (hits != null) {
+            if (element != null) {
+                hits.increment();
+            }
+            else {
+                misses.increment();
+            }
+        }
+        return element;
+    }
+
+    /**
+     * Gets the resolved value of the static element by its full path.
+     * Found value is counted as found lookup, but not found value is not counted,
+     * as element is expected to be looked up with {@link #get(String)} then.
+     *
+     * @param path the full element path, parts are separated by colons.
+     * @return the resolved value or {@code null} if element is not found, not static
+     *         or was changed after the value was resolved.
+     */
+    @Nullable
+    public StaticValue getStaticValue(String path) {
+        final StaticValue value = values.get(path);
+        if (value == null || !value.isCurrent()) {
+            return null;
+        }
+        if (hits != null) {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Checks whether there is element with specified full path.
+     *
+     * @param path the full element path, parts are separated by colons.
+     * @return {@code true} if element exists, otherwise {@code false}.
+     */
+    public boolean contains(String path) {
+        return elements.containsKey(path);
+    }
+
+    /**
+     * Gets the unmodifiable set of all indexed paths.
+     *
+     * @return the set of indexed paths.
+     */
+    @NotNull
+    public Set<String> getPaths() {
+        return Collections.unmodifiableSet(elements.keySet());
+    }
+
+    /**
+     * Gets the unmodifiable map of all indexed elements by their full paths.
+     * Elements got from the map are not counted as lookups.
+     *
+     * @return the map of indexed elements.
+     */
+    @NotNull
+    public Map<String, NamedElement> getElements() {
+        return Collections.unmodifiableMap(elements);
+    }
+
+    /**
+     * Gets the count of indexed elements.
+     *
+     * @return the count of indexed elements.
+     */
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * Gets the count of lookups with {@link #get(String)} that found the element.
+     *
+     * @return the count of found lookups, 0 if lookups are not counted.
+     */
+    public long getHitCount() {
+        return (hits != null ? hits.get() : 0);
+    }
+
+    /**
+     * Gets the count of lookups with {@link #get(String)} that didn't find the element.
+     *
+     * @return the count of missed lookups, 0 if lookups are not counted.
+     */
+    public long getMissCount() {
+        return (misses != null ? misses.get() : 0);
+    }
+
+    // ------------------------------------------------------------
+
+    /**
+     * The resolved value of the static element.
+     * <p>
+     * Value keeps the property, its value holder and the raw value it was resolved from;
+     * for the set it keeps the set elements and their resolved values. It's current while
+     * none of them is replaced.
+     */
+    public static final class StaticValue {
+
+        private final Object value;
+        private final String string;
+
+        // the sources of the property value
+        private final Property property;
+        private final Value source;
+        private final Object raw;
+
+        // the sources of the set value
+        private final PropertySet set;
+        private final NamedElement[] members;
+        private final StaticValue[] children;
+
+        private StaticValue(Property property) {
+            this.property = property;
+            this.source = property.getValue();
+            this.raw = (source != null ? source.getValue() : null);
+            this.value = unmodifiable(raw);
+            this.string = (value != null && !isContainer(value) ? String.valueOf(value) : null);
+            this.set = null;
+            this.members = null;
+            this.children = null;
+        }
+
+        private StaticValue(PropertySet set, NamedElement[] members, StaticValue[] children, Object value) {
+            this.property = null;
+            this.source = null;
+            this.raw = null;
+            this.value = value;
+            this.string = null;
+            this.set = set;
+            this.members = members;
+            this.children = children;
+        }
+
+        /**
+         * Checks whether value is still the value of the element, i.e. property value
+         * or set elements were not changed after value was resolved.
+         *
+         * @return {@code true} if value is current, otherwise {@code false}.
+         */
+        public boolean isCurrent() {
+            if (property != null) {
+                return property.getValue() == source && (source == null || source.getValue() == raw);
+            }
+            if (set.getElements().size() != members.length) {
+                return false;
+            }
+            for (int i = 0; i < members.length; i++) {
+                if (set.getElement(members[i].getName()) != members[i] || !children[i].isCurrent()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gets the value; collections are unmodifiable.
+         *
+         * @return the element value, can be null.
+         */
+        @Nullable
+        public Object getValue() {
+            return value;
+        }
+
+        /**
+         * Gets the string representation of the value. String of the collection is not kept,
+         * as collection elements can be changed in place.
+         *
+         * @return the value as string or {@code null} if value is null.
+         */
+        @Nullable
+        public String getString() {
+            if (string == null && value != null) {
+                return String.valueOf(value);
+            }
+            return string;
+        }
+
+        private static boolean isContainer(Object value) {
+            return value instanceof Collection || value instanceof Map;
+        }
+    }
+
+    /**
+     * The counter that is updated by many threads. Threads increment different cells,
+     * chosen by thread id, so they don't contend for the same value.
+     * The cells are padded by 128 bytes, so neither they nor the array header share
+     * the cache line or the pair of lines fetched together.
+     */
+    private static final class StripedCounter {
+
+        private static final int STRIPES = 16;
+        private static final int PADDING = 16;
+
+        private final AtomicLongArray cells = new AtomicLongArray((STRIPES + 1) * PADDING);
+
+        void increment() {
+            final int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+            cells.incrementAndGet((stripe + 1) * PADDING);
+        }
+
+        long get() {
+            long result = 0;
+            for (int i = 1; i <= STRIPES; i++) {
+                result += cells.get(i * PADDING);
+            }
+            return result;
+        }
+    }
+}
@@ -45,7 +45,7 @@ public class ElementUtil {
         if (element == null) return null;
 
         if (element instanceof PojoElement) {
-            return ((PojoElement) element).getPojoNewInstance();
+            return ((PojoElement) element).getPojo();
         }
         else if (element instanceof SwitchElement) {
             // converting to Switch element
@@ -86,6 +86,48 @@ public class ElementUtil {
         return getElementValue(null, element);
     }
 
+    /**
+     * Gets the element accessed by path in the elements container.
+     * If path has only one part with colons, than it is split by colons.
+     *
+     * @param elements the elements container.
+     * @param path the element path.
+     * @return the found element or {@code null} if not found.
+     */
+    public static NamedElement getElement(NamedElementsContainer elements, String... path) {
+        if (elements == null || path == null || path.length == 0) {
+            return null;
+        }
+        if (path.length == 1 && path[0].contains(":")) {
+            path = path[0].split(":");
+        }
+
+        NamedElementsContainer container = elements;
+        NamedElement element = null;
+        for (String each : path) {
+            if (container == null) {
+                return null;
+            }
+            element = container.getElement(each);
+            container = (element instanceof NamedElementsContainer ? (NamedElementsContainer) element : null);
+        }
+        return element;
+    }
+
+    /**
+     * Gets the element accessed by path in the configuration.
+     * This method also checks included configurations to find the element if not found in base configuration.
+     * <p>
+     * The order of included configurations matters.
+     *
+     * @param configuration the configuration to get element from.
+     * @param path the element path.
+     * @return the found element or {@code null} if not found.
+     */
+    public static NamedElement getElement(Configuration configuration, String... path) {
+        return configuration.findElement(path);
+    }
+
     @SuppressWarnings(Warnings.Unchecked)
     public static Object getElementValue(ContextMap context, NamedElementsContainer elements,
                                          String... path) throws ValueAccessException {
@@ -124,9 +166,8 @@ public class ElementUtil {
      * Returns the value of the property accessed by path in the configuration.
      * This method also checks included configurations to get the property value if not found in base configuration.
      * <p>
-     * The order of included configurations matters.
-     * <p>
-     * Method is recursive for the included configurations.
+     * The order of included configurations matters: property of the configuration
+     * hides the property with the same path in included configurations.
      *
      * @param context the context map, can be null.
      * @param configuration the configuration to get property from.
@@ -136,26 +177,18 @@ public class ElementUtil {
      */
     public static Object getElementValue(ContextMap context, Configuration configuration,
                                          String... path) throws ValueAccessException {
-        Object value = getElementValue(context, (NamedElementsContainer) configuration, path);
-        if (value == null) {
-            for (Configuration each : configuration.getIncludedConfigurations()) {
-                value = getElementValue(context, each, path);
-                if (value != null) {
-                    return value;
-                }
-            }
+        if (path == null || path.length == 0) {
+            throw new ValueAccessException("No value found: path is wrong.");
         }
-
-        return value;
+        return getElementValue(context, configuration.findElement(path));
     }
 
     /**
      * Returns the value of the property accessed by path in the configuration.
      * This method also checks included configurations to get the property value if not found in base configuration.
      * <p>
-     * The order of included configurations matters.
-     * <p>
-     * Method is recursive for the included configurations.
+     * The order of included configurations matters: property of the configuration
+     * hides the property with the same path in included configurations.
      *
      * @param configuration the configuration to get property from.
      * @param path the property path.
@@ -163,16 +196,6 @@ public class ElementUtil {
      * @throws ValueAccessException error to access property value.
      */
     public static Object getElementValue(Configuration configuration, String... path) throws ValueAccessException {
-        Object value = getElementValue(null, (NamedElementsContainer) configuration, path);
-        if (value == null) {
-            for (Configuration each : configuration.getIncludedConfigurations()) {
-                value = getElementValue(null, each, path);
-                if (value != null) {
-                    return value;
-                }
-            }
-        }
-
-        return value;
+        return getElementValue(null, configuration, path);
     }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.element.cache;
+
+import com.prutsoft.core.ToStringBuilder;
+import com.prutsoft.core.asserts.ArgumentAssert;
+
+import java.io.Serializable;
+
+/**
+ * The policy of the element evaluation results cache.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-05
+ */
+public class CachePolicy implements Serializable {
+
+    /**
+     * The max count of cached results.
+     */
+    private final int maxSize;
+
+    /**
+     * The period in seconds the cached result is valid,
+     * 0 if cached result is valid until evicted.
+     */
+    private final int timeToLive;
+
+    /**
+     * Creates cache policy.
+     *
+     * @param maxSize    the max count of cached results; should be positive.
+     * @param timeToLive the period in seconds the cached result is valid; 0 if results don't expire.
+     */
+    public CachePolicy(int maxSize, int timeToLive) {
+        ArgumentAssert.isTrue(maxSize > 0, "Max size should be positive.");
+        ArgumentAssert.isTrue(timeToLive >= 0, "Time to live can't be negative.");
+
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getTimeToLive() {
+        return timeToLive;
+    }
+
+    // -------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this.getClass(), 20)
+                .field("MaxSize", maxSize)
+                .field("TimeToLive, s", timeToLive)
+                .toString();
+    }
+}
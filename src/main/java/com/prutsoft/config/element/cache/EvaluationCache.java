@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.element.cache;
+
+import com.prutsoft.core.annotation.NotNull;
+import com.prutsoft.core.annotation.Nullable;
+import com.prutsoft.core.asserts.ArgumentAssert;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The cache of the element evaluation results.
+ * <p>
+ * Result is cached for the values of context variables referenced by the element.
+ * If these variables are unknown, than result is cached for the whole context.
+ * Context values are used as a part of the key, so they should not be changed
+ * after evaluation.
+ * <p>
+ * Cached results are read without locking. When cache is full, the least recently used
+ * of a few sampled results is evicted, so eviction order is approximate. Samples are taken
+ * by the clock hand that moves over all results, so each result is compared in its turn.
+ * Result expires after time to live from the moment it was cached.
+ * <p>
+ * Cache belongs to the element of the configuration snapshot, so when configuration
+ * is reloaded the new elements start with empty caches. Elements of included configurations
+ * that were not changed are reused by the new snapshot, and the loader discards their caches.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-05
+ */
+public final class EvaluationCache {
+
+    /**
+     * Returned by {@link #get(Object)} if there is no cached result for the key.
+     */
+    public static final Object NOT_CACHED = new Object();
+
+    /**
+     * Used to cache {@code null} results.
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * The count of results compared to choose the one to evict.
+     */
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final String[] variables;
+    private final long timeToLive;
+    private final int maxSize;
+    private final ConcurrentMap<Object, CachedResult> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * The clock hand, i.e. the iterator positioned at the next sampled result;
+     * it's guarded by the lock, so only eviction is locked.
+     */
+    private final Object lock = new Object();
+    private Iterator<Map.Entry<Object, CachedResult>> hand;
+
+    /**
+     * Creates the cache.
+     *
+     * @param policy    the cache policy; can't be null.
+     * @param variables the context variables results depend on;
+     *                  {@code null} if unknown and results depend on the whole context.
+     */
+    public EvaluationCache(@NotNull CachePolicy policy, @Nullable Set<String> variables) {
+        ArgumentAssert.isNotNull(policy, "Cache policy can't be null.");
+
+        this.maxSize = policy.getMaxSize();
+        this.timeToLive = policy.getTimeToLive() * 1000L;
+        this.variables = (variables != null ? variables.toArray(new String[variables.size()]) : null);
+        this.entries = new ConcurrentHashMap<Object, CachedResult>();
+    }
+
+    /**
+     * Gets the cache key for the evaluation context.
+     *
+     * @param context the evaluation context, can be null.
+     * @return the cache key.
+     */
+    @NotNull
+    public Object getKey(@Nullable Map<String, Object> context) {
+        if (variables == null) {
+            return (context != null
+                    ? new HashMap<String, Object>(context)
+                    : Collections.<String, Object>emptyMap());
+        }
+
+        final Object[] values = new Object[variables.length];
+        if (context != null) {
+            for (int i = 0; i < variables.length; i++) {
+                values[i] = context.get(variables[i]);
+            }
+        }
+        return new Key(values);
+    }
+
+    /**
+     * Gets the cached result.
+     *
+     * @param key the cache key.
+     * @return the cached result or {@link #NOT_CACHED} if result is not cached or expired.
+     */
+    @Nullable
+    public Object get(@NotNull Object key) {
+        final CachedResult entry = entries.get(key);
+        if (entry != null) {
+            final long now = System.currentTimeMillis();
+            if (!entry.isExpired(now)) {
+                entry.touch(now);
+                hits.incrementAndGet();
+                return (entry.value != NULL ? entry.value : null);
+            }
+            entries.remove(key, entry);
+        }
+        misses.incrementAndGet();
+        return NOT_CACHED;
+    }
+
+    /**
+     * Caches the result.
+     *
+     * @param key   the cache key.
+     * @param value the result, can be null.
+     */
+    public void put(@NotNull Object key, @Nullable Object value) {
+        final long now = System.currentTimeMillis();
+        final long expires = (timeToLive != 0 ? now + timeToLive : 0);
+        entries.put(key, new CachedResult(value != null ? value : NULL, expires, now));
+        while (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Evicts the least recently used result among the sampled ones;
+     * expired result is evicted as soon as it's met. Results are sampled from the clock hand,
+     * which starts over when it passes the last result.
+     */
+    private void evict() {
+        final long now = System.currentTimeMillis();
+        Map.Entry<Object, CachedResult> eldest = null;
+        synchronized (lock) {
+            for (int i = 0; i < EVICTION_SAMPLE; i++) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                    if (!hand.hasNext()) {
+                        break;
+                    }
+                }
+                final Map.Entry<Object, CachedResult> entry = hand.next();
+                if (entry.getValue().isExpired(now)) {
+                    eldest = entry;
+                    break;
+                }
+                if (eldest == null || entry.getValue().accessed < eldest.getValue().accessed) {
+                    eldest = entry;
+                }
+            }
+        }
+        if (eldest != null) {
+            entries.remove(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    // ------------------------------------------------------------
+
+    /**
+     * The cached result.
+     */
+    private static class CachedResult {
+
+        private final Object value;
+        private final long expires;
+
+        // the time of last access; it's written without synchronization
+        // and only when changed, so eviction may see a bit older value
+        private long accessed;
+
+        private CachedResult(Object value, long expires, long accessed) {
+            this.value = value;
+            this.expires = expires;
+            this.accessed = accessed;
+        }
+
+        private boolean isExpired(long now) {
+            return expires != 0 && expires <= now;
+        }
+
+        private void touch(long now) {
+            if (accessed != now) {
+                accessed = now;
+            }
+        }
+    }
+
+    /**
+     * The key of values of the referenced context variables.
+     */
+    private static class Key {
+
+        private final Object[] values;
+        private final int hash;
+
+        private Key(Object[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj == this || (obj instanceof Key && Arrays.equals(values, ((Key) obj).values));
+        }
+    }
+}
@@ -9,19 +9,28 @@ package com.prutsoft.config.element.control;
 
 import com.prutsoft.config.ContextMap;
 import com.prutsoft.config.NamedElement;
+import com.prutsoft.config.element.cache.CachePolicy;
+import com.prutsoft.config.element.cache.EvaluationCache;
 import com.prutsoft.config.element.expression.EvaluationException;
+import com.prutsoft.config.element.expression.LogicalExpression;
+import com.prutsoft.config.element.expression.VariableAwareExpression;
 import com.prutsoft.config.element.value.Value;
 import com.prutsoft.core.asserts.ArgumentAssert;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * The switch element used to return only one result from a set of others.
  * Condition is used to choose need result.
+ * <p>
+ * If cache policy is set, than chosen values are cached for the values
+ * of context variables referenced by conditions.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2010-01-03
@@ -30,6 +39,8 @@ public class SwitchElement implements NamedElement, Serializable {
 
     private final String name;
     private final List<Condition<Value>> conditions;
+    private CachePolicy cachePolicy;
+    private transient volatile EvaluationCache cache;
 
     public SwitchElement(String name) {
         this.name = name;
@@ -43,17 +54,80 @@ public class SwitchElement implements NamedElement, Serializable {
     public void addCondition(Condition<Value> condition) {
         ArgumentAssert.isNotNull(condition, "Condition can't be null.");
         conditions.add(condition);
+        cache = null;
     }
 
     public void removeCondition(Condition<Value> condition) {
         ArgumentAssert.isNotNull(condition, "Condition can't be null.");
         conditions.remove(condition);
+        cache = null;
     }
 
     public List<Condition<Value>> getConditions() {
         return Collections.unmodifiableList(conditions);
     }
 
+    /**
+     * Gets the policy of chosen values cache.
+     * @return the cache policy or {@code null} if values are not cached.
+     */
+    public CachePolicy getCachePolicy() {
+        return cachePolicy;
+    }
+
+    /**
+     * Sets the policy of chosen values cache.
+     * @param cachePolicy the cache policy or {@code null} to not cache values.
+     */
+    public void setCachePolicy(CachePolicy cachePolicy) {
+        this.cachePolicy = cachePolicy;
+        this.cache = null;
+    }
+
+    /**
+     * Discards the cache of chosen values, the new one is created on next evaluation.
+     */
+    public void discardCache() {
+        cache = null;
+    }
+
+    /**
+     * Gets the cache of chosen values.
+     * @return the chosen values cache or {@code null} if values are not cached.
+     */
+    public EvaluationCache getCache() {
+        EvaluationCache result = cache;
+        if (result == null && cachePolicy != null) {
+            result = new EvaluationCache(cachePolicy, getVariables());
+            cache = result;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the variables referenced by conditions.
+     *
+     * @return the variables or {@code null} if variables of any condition are unknown.
+     */
+    private Set<String> getVariables() {
+        final Set<String> result = new HashSet<String>();
+        for (Condition<Value> each : conditions) {
+            if (each instanceof ElseCondition) {
+                continue;
+            }
+            final LogicalExpression expression = each.getExpression();
+            if (!(expression instanceof VariableAwareExpression)) {
+                return null;
+            }
+            final Set<String> variables = ((VariableAwareExpression) expression).getVariables();
+            if (variables == null) {
+                return null;
+            }
+            result.addAll(variables);
+        }
+        return result;
+    }
+
     /**
      * Gets the value for the switch element.
      *
@@ -62,6 +136,21 @@ public class SwitchElement implements NamedElement, Serializable {
      * @throws EvaluationException error to evaluate expressions and get the value.
      */
     public Value getValue(Map<String, Object> context) throws EvaluationException {
+        final EvaluationCache evaluationCache = getCache();
+        if (evaluationCache == null) {
+            return chooseValue(context);
+        }
+
+        final Object key = evaluationCache.getKey(context);
+        Object result = evaluationCache.get(key);
+        if (result == EvaluationCache.NOT_CACHED) {
+            result = chooseValue(context);
+            evaluationCache.put(key, result);
+        }
+        return (Value) result;
+    }
+
+    private Value chooseValue(Map<String, Object> context) throws EvaluationException {
         Condition<Value> elseCondition = null;
         for (Condition<Value> each : conditions) {
             if (each instanceof ElseCondition) {
@@ -9,6 +9,8 @@ package com.prutsoft.config.element.expression;
 
 import com.prutsoft.config.ContextMap;
 import com.prutsoft.config.NamedElement;
+import com.prutsoft.config.element.cache.CachePolicy;
+import com.prutsoft.config.element.cache.EvaluationCache;
 
 import java.io.Serializable;
 import java.util.Collections;
@@ -17,6 +19,9 @@ import java.util.Map;
 /**
  * The expression element used to return calculated value.
  * It's just another kind of property.
+ * <p>
+ * If cache policy is set, than evaluation results are cached
+ * for the values of context variables referenced by expression.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2010-01-03
@@ -26,6 +31,8 @@ public class ExpressionElement implements NamedElement, Serializable {
     private final String name;
     private Expression expression;
     private String description;
+    private CachePolicy cachePolicy;
+    private transient volatile EvaluationCache cache;
 
     public ExpressionElement(String name) {
         this.name = name;
@@ -46,18 +53,68 @@ public class ExpressionElement implements NamedElement, Serializable {
 
     public void setExpression(Expression expression) {
         this.expression = expression;
+        this.cache = null;
+    }
+
+    /**
+     * Gets the policy of evaluation results cache.
+     * @return the cache policy or {@code null} if results are not cached.
+     */
+    public CachePolicy getCachePolicy() {
+        return cachePolicy;
+    }
+
+    /**
+     * Sets the policy of evaluation results cache.
+     * @param cachePolicy the cache policy or {@code null} to not cache results.
+     */
+    public void setCachePolicy(CachePolicy cachePolicy) {
+        this.cachePolicy = cachePolicy;
+        this.cache = null;
+    }
+
+    /**
+     * Discards the cache of evaluation results, the new one is created on next evaluation.
+     */
+    public void discardCache() {
+        cache = null;
+    }
+
+    /**
+     * Gets the cache of evaluation results.
+     * @return the evaluation results cache or {@code null} if results are not cached.
+     */
+    public EvaluationCache getCache() {
+        EvaluationCache result = cache;
+        if (result == null && cachePolicy != null) {
+            result = new EvaluationCache(cachePolicy, expression instanceof VariableAwareExpression
+                    ? ((VariableAwareExpression) expression).getVariables() : null);
+            cache = result;
+        }
+        return result;
     }
 
     public Object getValue(String name, Object value) throws EvaluationException {
-        return expression.evaluate(Collections.singletonMap(name, value));
+        return getValue(Collections.singletonMap(name, value));
     }
 
     public Object getValue(Map<String, Object> context) throws EvaluationException {
-        return expression.evaluate(context);
+        final EvaluationCache evaluationCache = getCache();
+        if (evaluationCache == null) {
+            return expression.evaluate(context);
+        }
+
+        final Object key = evaluationCache.getKey(context);
+        Object result = evaluationCache.get(key);
+        if (result == EvaluationCache.NOT_CACHED) {
+            result = expression.evaluate(context);
+            evaluationCache.put(key, result);
+        }
+        return result;
     }
 
     public Object getValue(ContextMap context) throws EvaluationException {
-        return expression.evaluate(context != null ? context.getMap() : null);
+        return getValue(context != null ? context.getMap() : null);
     }
 
     /**
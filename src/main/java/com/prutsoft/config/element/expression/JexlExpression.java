@@ -9,32 +9,54 @@ package com.prutsoft.config.element.expression;
 
 import com.prutsoft.core.annotation.Nullable;
 import com.prutsoft.core.utils.StringUtils;
-import org.apache.commons.jexl.ExpressionFactory;
 import org.apache.commons.jexl.JexlContext;
 import org.apache.commons.jexl.JexlHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Expression written with Apache JEXL.
+ * Expression is parsed once on creation, and compiled expression
+ * is used for each evaluation.
+ * <p>
+ * Referenced variables are found when expression is created, see {@link JexlVariables}.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2010-01-03
  */
-class JexlExpression implements Expression {
+class JexlExpression implements VariableAwareExpression, SourceAwareExpression {
 
     private static final Logger log = LoggerFactory.getLogger(JexlExpression.class);
 
     private final String expression;
+    private final org.apache.commons.jexl.Expression compiled;
+    private final Set<String> variables;
 
-    public JexlExpression(String expression) {
+    /**
+     * Creates and parses the expression.
+     *
+     * @param expression the expression text.
+     * @throws EvaluationException error to parse expression.
+     */
+    public JexlExpression(String expression) throws EvaluationException {
         this.expression = expression;
+        this.compiled = compile(expression);
+        this.variables = JexlVariables.find(expression);
+    }
+
+    public String getSource() {
+        return expression;
+    }
+
+    public Set<String> getVariables() {
+        return variables;
     }
 
     public Object evaluate(@Nullable Map<String, Object> context) throws EvaluationException {
-        if (StringUtils.isEmptyTrimmed(expression)) {
+        if (compiled == null) {
             return null;
         }
 
@@ -44,12 +66,25 @@ class JexlExpression implements Expression {
                 jexlContext.setVars(context);
             }
 
-            org.apache.commons.jexl.Expression e = ExpressionFactory.createExpression(expression);
-            return e.evaluate(jexlContext);
+            return compiled.evaluate(jexlContext);
         }
         catch (Exception e) {
-            log.error("Can't prepare expression.:", e);
+            log.error("Can't evaluate expression.:", e);
             throw new EvaluationException("Can't evaluate the expression: " + expression, e);
         }
     }
+
+    private static org.apache.commons.jexl.Expression compile(String expression) throws EvaluationException {
+        if (StringUtils.isEmptyTrimmed(expression)) {
+            return null;
+        }
+
+        try {
+            return JexlExpressionCache.getInstance().getExpression(expression);
+        }
+        catch (Exception e) {
+            log.error("Can't prepare expression.:", e);
+            throw new EvaluationException("Can't parse the expression: " + expression, e);
+        }
+    }
 }
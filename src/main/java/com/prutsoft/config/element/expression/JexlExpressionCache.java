@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.element.expression;
+
+import org.apache.commons.jexl.Expression;
+import org.apache.commons.jexl.ExpressionFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The bounded cache of compiled JEXL expressions.
+ * Expressions are keyed by their text, so the same expression used
+ * in different elements or configurations is parsed only once.
+ * <p>
+ * When cache is full, the least recently used expression is evicted.
+ * Compiled expressions are never modified after creation, so they are shared
+ * between threads.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-02
+ */
+final class JexlExpressionCache {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private static final JexlExpressionCache cache = new JexlExpressionCache(DEFAULT_CAPACITY);
+
+    public static JexlExpressionCache getInstance() {
+        return cache;
+    }
+
+    // ------------------------------------------------------------
+
+    private final Map<String, Expression> expressions;
+
+    private JexlExpressionCache(final int capacity) {
+        expressions = new LinkedHashMap<String, Expression>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the compiled expression for specified expression text.
+     * If there is no such expression in the cache, than expression is parsed and cached.
+     *
+     * @param expression the expression text.
+     * @return the compiled expression.
+     * @throws Exception error to parse expression.
+     */
+    public Expression getExpression(String expression) throws Exception {
+        synchronized (expressions) {
+            final Expression result = expressions.get(expression);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        // parse out of the lock, it's fine if the same expression is parsed twice
+        final Expression result = ExpressionFactory.createExpression(expression);
+        synchronized (expressions) {
+            expressions.put(expression, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.element.expression;
+
+import com.prutsoft.core.annotation.NotNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Finds the context variables referenced by JEXL expression.
+ * <p>
+ * Expression text is scanned for identifiers, skipping string literals, numbers,
+ * JEXL keywords and members accessed with dot. As JEXL resolves dotted names like
+ * <code>a.b.c</code> as context variables too, each prefix of the dotted name is variable.
+ * Found set can contain extra names, e.g. names of local variables, but never misses
+ * referenced context variable.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-05
+ */
+final class JexlVariables {
+
+    private static final Set<String> KEYWORDS = new HashSet<String>(Arrays.asList(
+            "or", "and", "not", "eq", "ne", "lt", "gt", "le", "ge", "div", "mod",
+            "null", "true", "false", "empty", "size", "if", "else", "while", "foreach", "in"));
+
+    /**
+     * Finds the variables referenced by expression.
+     *
+     * @param expression the expression text.
+     * @return the unmodifiable set of variable names.
+     */
+    @NotNull
+    public static Set<String> find(String expression) {
+        if (expression == null) {
+            return Collections.emptySet();
+        }
+
+        final Set<String> result = new HashSet<String>();
+        final int length = expression.length();
+        int i = 0;
+        while (i < length) {
+            final char ch = expression.charAt(i);
+            if (ch == '\'' || ch == '"') {
+                i = skipString(expression, i);
+            }
+            else if (Character.isDigit(ch)) {
+                i = skipNumber(expression, i);
+            }
+            else if (Character.isJavaIdentifierStart(ch)) {
+                final int end = skipIdentifier(expression, i);
+                final String name = expression.substring(i, end);
+                if (isMember(expression, i) || KEYWORDS.contains(name)) {
+                    i = end;
+                }
+                else {
+                    result.add(name);
+                    i = addDottedNames(expression, end, name, result);
+                }
+            }
+            else {
+                i++;
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    private static int addDottedNames(String expression, int start, String name, Set<String> result) {
+        final StringBuilder dotted = new StringBuilder(name);
+        int i = start;
+        while (i + 1 < expression.length() && expression.charAt(i) == '.'
+                && Character.isJavaIdentifierStart(expression.charAt(i + 1))) {
+            final int end = skipIdentifier(expression, i + 1);
+            dotted.append(expression, i, end);
+            result.add(dotted.toString());
+            i = end;
+        }
+        return i;
+    }
+
+    private static boolean isMember(String expression, int start) {
+        for (int i = start - 1; i >= 0; i--) {
+            final char ch = expression.charAt(i);
+            if (!Character.isWhitespace(ch)) {
+                return ch == '.';
+            }
+        }
+        return false;
+    }
+
+    private static int skipIdentifier(String expression, int start) {
+        int i = start + 1;
+        while (i < expression.length() && Character.isJavaIdentifierPart(expression.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipNumber(String expression, int start) {
+        int i = start + 1;
+        while (i < expression.length()) {
+            final char ch = expression.charAt(i);
+            if (!Character.isLetterOrDigit(ch) && ch != '.' && ch != '_') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipString(String expression, int start) {
+        final char quote = expression.charAt(start);
+        int i = start + 1;
+        while (i < expression.length()) {
+            final char ch = expression.charAt(i);
+            if (ch == '\\') {
+                i += 2;
+                continue;
+            }
+            i++;
+            if (ch == quote) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private JexlVariables() {
+    }
+}
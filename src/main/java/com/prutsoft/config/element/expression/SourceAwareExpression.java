@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.element.expression;
+
+import com.prutsoft.core.annotation.NotNull;
+
+/**
+ * The expression that knows the source text it is created from,
+ * so it can be created again with {@link ExpressionFactory}.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-11
+ */
+public interface SourceAwareExpression extends Expression {
+
+    /**
+     * Gets the source text of the expression.
+     *
+     * @return the expression text.
+     */
+    @NotNull
+    String getSource();
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.element.expression;
+
+import com.prutsoft.core.annotation.Nullable;
+
+import java.util.Set;
+
+/**
+ * The expression that knows which context variables it references.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-05
+ */
+public interface VariableAwareExpression extends Expression {
+
+    /**
+     * Gets the names of context variables the expression may reference.
+     * The result of evaluation depends only on the values of these variables.
+     * Set may contain names that are not really variables, but it contains all variables.
+     *
+     * @return the unmodifiable set of variable names or {@code null} if they are unknown.
+     */
+    @Nullable
+    Set<String> getVariables();
+}
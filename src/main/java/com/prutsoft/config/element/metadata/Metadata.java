@@ -10,6 +10,8 @@ package com.prutsoft.config.element.metadata;
 import com.prutsoft.core.asserts.ArgumentAssert;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -47,6 +49,15 @@ public class Metadata implements Serializable {
         return (property != null ? property.getValue() : null);
     }
 
+    /**
+     * Gets all properties, ordered by name.
+     *
+     * @return the unmodifiable collection of properties.
+     */
+    public Collection<MetadataProperty> getProperties() {
+        return Collections.unmodifiableCollection(properties.values());
+    }
+
     /**
      * Adds metadata property.
      * Property will be not added if there is property with such name; instead {@code false} will be returned.
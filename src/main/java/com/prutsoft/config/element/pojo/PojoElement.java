@@ -14,6 +14,9 @@ import com.prutsoft.core.asserts.ArgumentAssert;
 import com.prutsoft.core.code.Warnings;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Collections;
@@ -23,6 +26,13 @@ import java.util.Map;
 /**
  * The POJO configuration element.
  * Used to configure existing object.
+ * <p>
+ * Getter and setter of each pojo property are found once, when the first instance is created,
+ * and are used as method handles for all next instances. They are found again only after
+ * pojo elements are changed.
+ * <p>
+ * Pojo value is created according to the {@link PojoInstancePolicy}, new instance is created
+ * on each read by default.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2010-01-04
@@ -32,13 +42,26 @@ public class PojoElement implements NamedElement, NamedElementsContainer, Serial
     private final Object lock = new Object();
 
     private final String name;
-    private final Class pojoClass;
+    private final Class<?> pojoClass;
     private Map<String, NamedElement> elements = new HashMap<String, NamedElement>();
     private String description;
 
-    private Object instance = null;
+    private PojoInstancePolicy instancePolicy = PojoInstancePolicy.PER_READ;
+    private volatile Object instance = null;
+    private transient volatile ThreadLocal<Object> threadInstance;
 
-    public PojoElement(String name, Class pojoClass) {
+    /**
+     * The bindings of the pojo elements to the pojo properties,
+     * {@code null} if not found yet.
+     */
+    private transient volatile PropertyBinding[] bindings;
+
+    /**
+     * The handle of the pojo class constructor, {@code null} if not found yet.
+     */
+    private transient volatile MethodHandle constructor;
+
+    public PojoElement(String name, Class<?> pojoClass) {
         this.name = name;
         this.pojoClass = pojoClass;
     }
@@ -47,7 +70,7 @@ public class PojoElement implements NamedElement, NamedElementsContainer, Serial
         return name;
     }
 
-    public Class getPojoClass() {
+    public Class<?> getPojoClass() {
         return pojoClass;
     }
 
@@ -67,6 +90,23 @@ public class PojoElement implements NamedElement, NamedElementsContainer, Serial
         this.description = description;
     }
 
+    /**
+     * Gets the policy of pojo instances creation.
+     * @return the pojo instance policy.
+     */
+    public PojoInstancePolicy getInstancePolicy() {
+        return instancePolicy;
+    }
+
+    /**
+     * Sets the policy of pojo instances creation.
+     * @param instancePolicy the pojo instance policy; can't be null.
+     */
+    public void setInstancePolicy(PojoInstancePolicy instancePolicy) {
+        ArgumentAssert.isNotNull(instancePolicy, "Instance policy can't be null.");
+        this.instancePolicy = instancePolicy;
+    }
+
     public NamedElement getElement(String name) {
         return elements.get(name);
     }
@@ -79,66 +119,126 @@ public class PojoElement implements NamedElement, NamedElementsContainer, Serial
         ArgumentAssert.isNotNull(element, "Element can't be null.");
         if (hasElement(element.getName())) return false;
         elements.put(element.getName(), element);
+        resetInstances();
         return true;
     }
 
     public boolean removeElement(String name) {
-        return (elements.remove(name) != null);
+        if (elements.remove(name) != null) {
+            resetInstances();
+            return true;
+        }
+        return false;
     }
 
     public boolean hasElement(String name) {
         return elements.containsKey(name);
     }
 
+    /**
+     * Gets the pojo value according to the instance policy.
+     *
+     * @return the pojo value.
+     */
+    public Object getPojo() {
+        switch (instancePolicy) {
+            case SINGLETON:
+                return getPojoInstance();
+            case THREAD_LOCAL:
+                return getPojoThreadInstance();
+            default:
+                return getPojoNewInstance();
+        }
+    }
+
     public Object getPojoInstance() {
-        synchronized (lock) {
-            if (instance == null) {
-                instance = getPojoNewInstance();
+        Object result = instance;
+        if (result == null) {
+            synchronized (lock) {
+                result = instance;
+                if (result == null) {
+                    result = getPojoNewInstance();
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the pojo instance created for the current thread.
+     *
+     * @return the pojo instance of the current thread.
+     */
+    public Object getPojoThreadInstance() {
+        ThreadLocal<Object> local = threadInstance;
+        if (local == null) {
+            synchronized (lock) {
+                local = threadInstance;
+                if (local == null) {
+                    local = new ThreadLocal<Object>();
+                    threadInstance = local;
+                }
             }
-            return instance;
         }
+
+        Object result = local.get();
+        if (result == null) {
+            result = getPojoNewInstance();
+            local.set(result);
+        }
+        return result;
     }
 
     public Object getPojoNewInstance() {
         try {
-            Object pojo = pojoClass.newInstance();
-            Method[] methods = pojoClass.getMethods();
-
-            for (NamedElement each : elements.values()) {
-                Object value = ElementUtil.getElementValue(each);
-                setPropertyValue(pojo, methods, each, value);
+            final Object pojo = getConstructor().invokeExact();
+            for (PropertyBinding each : getBindings()) {
+                each.setValue(pojo, ElementUtil.getElementValue(each.element));
             }
-
             return pojo;
         }
-        catch (Exception e) {
+        catch (Error e) {
+            throw e;
+        }
+        catch (Throwable e) {
             throw new IllegalStateException("Error to create new pojo instance.", e);
         }
     }
 
-    @SuppressWarnings(Warnings.Unchecked)
-    private void setPropertyValue(Object pojo, Method[] methods, NamedElement each, Object value) throws Exception {
-        final String propertyName = each.getName().substring(0, 1).toUpperCase() + each.getName().substring(1);
-        final Method[] propertyMethods = getPropertyMethods(methods, propertyName);
-        final Method getter = propertyMethods[0];
-        final Method setter = propertyMethods[1];
+    private void resetInstances() {
+        bindings = null;
+        instance = null;
+        threadInstance = null;
+    }
 
-        if (value instanceof Collection) {
-            // Try to get current collection
-            Collection collection = (Collection) getter.invoke(pojo);
-            if (collection != null) {
-                collection.addAll((Collection) value);
-            }
-            else if (setter != null) {
-                // If it's null than create new and add values to
-                collection = (Collection) getter.getReturnType().newInstance();
-                collection.addAll((Collection) value);
-                setter.invoke(pojo, value);
-            }
+    private MethodHandle getConstructor() throws ReflectiveOperationException {
+        MethodHandle result = constructor;
+        if (result == null) {
+            result = MethodHandles.lookup()
+                    .unreflectConstructor(pojoClass.getDeclaredConstructor())
+                    .asType(MethodType.methodType(Object.class));
+            constructor = result;
         }
-        else if (setter != null) {
-            setter.invoke(pojo, value);
+        return result;
+    }
+
+    private PropertyBinding[] getBindings() throws ReflectiveOperationException {
+        PropertyBinding[] result = bindings;
+        if (result == null) {
+            final Method[] methods = pojoClass.getMethods();
+            final Collection<NamedElement> pojoElements = elements.values();
+
+            result = new PropertyBinding[pojoElements.size()];
+            int index = 0;
+            for (NamedElement each : pojoElements) {
+                final String propertyName = each.getName().substring(0, 1).toUpperCase() + each.getName().substring(1);
+                final Method[] propertyMethods = getPropertyMethods(methods, propertyName);
+                result[index++] = new PropertyBinding(each, propertyMethods[0], propertyMethods[1]);
+            }
+            bindings = result;
         }
+        return result;
     }
 
     private Method[] getPropertyMethods(Method[] clazzMethods, String propertyName) {
@@ -160,4 +260,48 @@ public class PojoElement implements NamedElement, NamedElementsContainer, Serial
         return result;
     }
 
+    // ------------------------------------------------------------
+
+    /**
+     * The binding of the pojo element to the getter and setter of the pojo property.
+     * Getter and setter are adapted to take and return objects, so they are invoked exactly.
+     */
+    private static class PropertyBinding {
+
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final NamedElement element;
+        private final Class<?> getterType;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private PropertyBinding(NamedElement element, Method getter, Method setter) throws IllegalAccessException {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            this.element = element;
+            this.getterType = (getter != null ? getter.getReturnType() : null);
+            this.getter = (getter != null ? lookup.unreflect(getter).asType(GETTER_TYPE) : null);
+            this.setter = (setter != null ? lookup.unreflect(setter).asType(SETTER_TYPE) : null);
+        }
+
+        @SuppressWarnings(Warnings.Unchecked)
+        private void setValue(Object pojo, Object value) throws Throwable {
+            if (value instanceof Collection) {
+                // Try to get current collection
+                Collection collection = (Collection) (Object) getter.invokeExact(pojo);
+                if (collection != null) {
+                    collection.addAll((Collection) value);
+                }
+                else if (setter != null) {
+                    // If it's null than create new and add values to
+                    collection = (Collection) getterType.newInstance();
+                    collection.addAll((Collection) value);
+                    setter.invokeExact(pojo, value);
+                }
+            }
+            else if (setter != null) {
+                setter.invokeExact(pojo, value);
+            }
+        }
+    }
 }
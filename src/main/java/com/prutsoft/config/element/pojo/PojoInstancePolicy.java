@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.element.pojo;
+
+/**
+ * The policy of pojo instances creation, tells whether the pojo value
+ * is created on each read or is shared.
+ * <p>
+ * Shared instances are created from the configuration snapshot the pojo element belongs to,
+ * so reloaded configuration has new instances, while old instances stay unchanged.
+ * Shared instances should not be modified by the callers.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-08
+ */
+public enum PojoInstancePolicy {
+
+    /**
+     * New instance is created on each read.
+     */
+    PER_READ("per-read"),
+
+    /**
+     * The single instance is created on the first read and is returned to all threads.
+     */
+    SINGLETON("singleton"),
+
+    /**
+     * Instance is created on the first read in the thread and is returned to this thread.
+     */
+    THREAD_LOCAL("thread-local");
+
+    private final String name;
+
+    PojoInstancePolicy(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the policy name, as it's used in configuration.
+     *
+     * @return the policy name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Finds the policy by its name.
+     *
+     * @param name the policy name.
+     * @return the found policy or {@code null} if not found.
+     */
+    public static PojoInstancePolicy forName(String name) {
+        for (PojoInstancePolicy each : values()) {
+            if (each.name.equals(name)) {
+                return each;
+            }
+        }
+        return null;
+    }
+}
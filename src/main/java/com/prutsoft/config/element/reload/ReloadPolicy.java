@@ -19,6 +19,16 @@ import java.io.Serializable;
  */
 public class ReloadPolicy implements Serializable {
 
+    /**
+     * The default quiet period in milliseconds.
+     */
+    public static final long DEFAULT_QUIET_PERIOD = 300;
+
+    /**
+     * The default maximum delay of reload in milliseconds.
+     */
+    public static final long DEFAULT_MAX_DELAY = 5000;
+
     /**
      * If set to true than should check for configuration
      * resource changes to reload configuration.
@@ -31,6 +41,25 @@ public class ReloadPolicy implements Serializable {
      */
     private int checkEvery;
 
+    /**
+     * If set to true than file resource is watched for changes
+     * with file system notifications instead of checking it periodically.
+     */
+    private boolean watch;
+
+    /**
+     * The period in milliseconds without changes of resource before it's reloaded.
+     * Changes made within this period are reloaded once. If zero, than resource is
+     * reloaded as soon as change is found.
+     */
+    private long quietPeriod = DEFAULT_QUIET_PERIOD;
+
+    /**
+     * The maximum delay in milliseconds between the first found change and reload,
+     * even if resource keeps changing. If zero, than reload is not forced.
+     */
+    private long maxDelay = DEFAULT_MAX_DELAY;
+
     public boolean isOnChange() {
         return onChange;
     }
@@ -47,6 +76,30 @@ public class ReloadPolicy implements Serializable {
         this.checkEvery = checkEvery;
     }
 
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public void setWatch(boolean watch) {
+        this.watch = watch;
+    }
+
+    public long getQuietPeriod() {
+        return quietPeriod;
+    }
+
+    public void setQuietPeriod(long quietPeriod) {
+        this.quietPeriod = quietPeriod;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public void setMaxDelay(long maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
     // -------------------------------------------------------
 
     @Override
@@ -54,6 +107,9 @@ public class ReloadPolicy implements Serializable {
         return new ToStringBuilder(this.getClass(), 20)
                 .field("OnChange", onChange)
                 .field("CheckEvery, s", (checkEvery/1000))
+                .field("Watch", watch)
+                .field("QuietPeriod, ms", quietPeriod)
+                .field("MaxDelay, ms", maxDelay)
                 .toString();
     }
 
@@ -35,8 +35,14 @@ public class ValueTypeRegistry {
      */
     private final Map<String, ValueType> VALUE_TYPES;
 
+    /**
+     * The map of value types to the names they were registered with, aliases are not included.
+     */
+    private final Map<ValueType, String> VALUE_TYPE_NAMES;
+
     private ValueTypeRegistry() {
         VALUE_TYPES = new HashMap<String, ValueType>();
+        VALUE_TYPE_NAMES = new HashMap<ValueType, String>();
 
         registerDefaultValueTypes();
     }
@@ -77,6 +83,9 @@ public class ValueTypeRegistry {
 
         if (!VALUE_TYPES.containsKey(name)) {
             VALUE_TYPES.put(name, valueType);
+            if (!VALUE_TYPE_NAMES.containsKey(valueType)) {
+                VALUE_TYPE_NAMES.put(valueType, name);
+            }
             return true;
         }
 
@@ -93,7 +102,12 @@ public class ValueTypeRegistry {
      */
     public boolean removeValueType(@NotNull String name) {
         ArgumentAssert.isNotEmpty(name, "Name is required.");
-        return VALUE_TYPES.remove(name) != null;
+
+        final ValueType valueType = VALUE_TYPES.remove(name);
+        if (valueType != null && name.equals(VALUE_TYPE_NAMES.get(valueType))) {
+            VALUE_TYPE_NAMES.remove(valueType);
+        }
+        return valueType != null;
     }
 
     /**
@@ -131,4 +145,14 @@ public class ValueTypeRegistry {
         return name != null ? VALUE_TYPES.get(name)
                 : VALUE_TYPES.get(STRING_VALUE_TYPE);
     }
+
+    /**
+     * Gets the name the value type is registered with. Aliases are never returned.
+     *
+     * @param valueType the value type.
+     * @return the name of the value type or {@code null} if value type is not registered.
+     */
+    public String getValueTypeName(ValueType valueType) {
+        return VALUE_TYPE_NAMES.get(valueType);
+    }
 }
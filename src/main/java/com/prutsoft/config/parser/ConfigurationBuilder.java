@@ -11,6 +11,7 @@ import com.prutsoft.config.Configuration;
 import com.prutsoft.config.ConfigurationImpl;
 import com.prutsoft.config.NamedElement;
 import com.prutsoft.config.Version;
+import com.prutsoft.config.element.ElementIndex;
 import com.prutsoft.config.element.control.SwitchElement;
 import com.prutsoft.config.element.expression.ExpressionElement;
 import com.prutsoft.config.element.metadata.Metadata;
@@ -107,6 +108,13 @@ public class ConfigurationBuilder {
         return configurations.remove(configuration);
     }
 
+    /**
+     * Removes all included configurations, but not their paths.
+     */
+    public void clearConfigurations() {
+        configurations.clear();
+    }
+
     public boolean addProperty(Property property) {
         ArgumentAssert.isNotNull(property, "Property can't be null.");
         return properties.add(property);
@@ -245,11 +253,15 @@ public class ConfigurationBuilder {
         addExpressions(config);
         addPojos(config);
 
+        config.setElementIndex(ElementIndex.build(config));
+
         return config;
     }
 
     private void addConfigurations(ConfigurationImpl config) {
-        config.getIncludedConfigurations().addAll(configurations);
+        for (Configuration each : configurations) {
+            config.addIncludedConfiguration(each);
+        }
     }
 
     private void addProperties(ConfigurationImpl config) throws ConfigurationException {
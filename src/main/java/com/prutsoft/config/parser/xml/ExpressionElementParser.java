@@ -34,7 +34,9 @@ public class ExpressionElementParser implements ElementParser {
         final String name = ParserUtil.parseAttribute(node, "name", true);
         final String value = ParserUtil.parseAttribute(node, "value", true);
 
-        builder.addExpression(new ExpressionElement(name, 
-                ExpressionFactory.createExpression(value)));
+        final ExpressionElement expression = new ExpressionElement(name,
+                ExpressionFactory.createExpression(value));
+        expression.setCachePolicy(ParserUtil.parseCachePolicy(node, "expression"));
+        builder.addExpression(expression);
     }
 }
@@ -7,8 +7,10 @@
 
 package com.prutsoft.config.parser.xml;
 
+import com.prutsoft.config.element.cache.CachePolicy;
 import com.prutsoft.config.exception.ParseException;
 import com.prutsoft.config.parser.ConfigurationBuilder;
+import com.prutsoft.core.utils.ConversionUtils;
 import com.prutsoft.core.utils.StringUtils;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -74,5 +76,82 @@ class ParserUtil {
         return value;
     }
 
+    /**
+     * Parses the period, e.g. <code>30s</code>, <code>5m</code>, <code>2h</code> or <code>1d</code>.
+     *
+     * @param period    the period value.
+     * @param attribute the name of attribute with period, used in error message.
+     * @param entry     the name of entry with period, used in error message.
+     * @return the period in seconds.
+     * @throws ParseException unknown duration marker.
+     */
+    public static Integer parsePeriod(String period, String attribute, String entry) throws ParseException {
+        int multiplier;
+        if (period.endsWith("s")) {
+            multiplier = 1;
+        }
+        else if (period.endsWith("m")) {
+            multiplier = 60;
+        }
+        else if (period.endsWith("h")) {
+            multiplier = 3600;
+        }
+        else if (period.endsWith("d")) {
+            multiplier = 86400;
+        }
+        else {
+            throw new ParseException("Unknown duration marker: " + period.charAt(period.length() - 1)
+                    + " at attribute '" + attribute + "' on entry '" + entry + "'.");
+        }
+
+        return ConversionUtils.getInteger(period.substring(0, period.length() - 1)) * multiplier;
+    }
+
+    /**
+     * Parses the duration, e.g. <code>500ms</code> or any period supported by
+     * {@link #parsePeriod(String, String, String)}.
+     *
+     * @param duration  the duration value.
+     * @param attribute the name of attribute with duration, used in error message.
+     * @param entry     the name of entry with duration, used in error message.
+     * @return the duration in milliseconds.
+     * @throws ParseException unknown duration marker.
+     */
+    public static long parseMillis(String duration, String attribute, String entry) throws ParseException {
+        if (duration.endsWith("ms")) {
+            return ConversionUtils.getInteger(duration.substring(0, duration.length() - 2));
+        }
+        return parsePeriod(duration, attribute, entry) * 1000L;
+    }
 
+    /**
+     * Parses the evaluation cache policy from the attributes <code>cache-size</code>
+     * and <code>cache-ttl</code> of the node. Cache is enabled with <code>cache-size</code>
+     * attribute, <code>cache-ttl</code> is optional.
+     *
+     * @param node  the node with cache attributes.
+     * @param entry the name of entry, used in error message.
+     * @return the cache policy or {@code null} if cache is not enabled.
+     * @throws ParseException wrong cache size or time to live.
+     */
+    public static CachePolicy parseCachePolicy(Node node, String entry) throws ParseException {
+        final String size = parseAttribute(node, "cache-size", false);
+        final String ttl = parseAttribute(node, "cache-ttl", false);
+        if (StringUtils.isEmptyTrimmed(size)) {
+            if (!StringUtils.isEmptyTrimmed(ttl)) {
+                throw new ParseException("Attribute 'cache-ttl' requires attribute 'cache-size' on entry '"
+                        + entry + "'.");
+            }
+            return null;
+        }
+
+        final Integer maxSize = ConversionUtils.getInteger(size.trim());
+        if (maxSize == null || maxSize <= 0) {
+            throw new ParseException("Attribute 'cache-size' should be positive number on entry '"
+                    + entry + "'.");
+        }
+
+        final int timeToLive = (StringUtils.isEmptyTrimmed(ttl) ? 0 : parsePeriod(ttl.trim(), "cache-ttl", entry));
+        return new CachePolicy(maxSize, timeToLive);
+    }
 }
@@ -10,6 +10,7 @@ package com.prutsoft.config.parser.xml;
 import com.prutsoft.config.element.control.SwitchElement;
 import com.prutsoft.config.element.expression.ExpressionElement;
 import com.prutsoft.config.element.pojo.PojoElement;
+import com.prutsoft.config.element.pojo.PojoInstancePolicy;
 import com.prutsoft.config.element.property.Property;
 import com.prutsoft.config.element.set.PropertySet;
 import com.prutsoft.config.exception.ParseException;
@@ -105,6 +106,7 @@ public class PojoParser implements ElementParser {
         try {
             final String clazz = ParserUtil.parseAttribute(node, "class", true);
             final PojoElement pojo = new PojoElement(name, Class.forName(clazz));
+            pojo.setInstancePolicy(parseInstancePolicy(node));
             builder.addPojo(pojo);
 
             ConfigurationBuilder pojoBuilder = new ConfigurationBuilder();
@@ -131,6 +133,20 @@ public class PojoParser implements ElementParser {
         }
     }
 
+    private PojoInstancePolicy parseInstancePolicy(Node node) throws ParseException {
+        final String instance = ParserUtil.parseAttribute(node, "instance", false);
+        if (instance == null) {
+            return PojoInstancePolicy.PER_READ;
+        }
+
+        final PojoInstancePolicy result = PojoInstancePolicy.forName(instance.trim());
+        if (result == null) {
+            throw new ParseException("Unknown instance policy: " + instance
+                    + " at attribute 'instance' on entry 'pojo'.");
+        }
+        return result;
+    }
+
     private List<ElementParser> getParsersList() {
         final List<ElementParser> parsers = new ArrayList<ElementParser>();
         parsers.add(getPropertyParser());
@@ -12,12 +12,20 @@ import com.prutsoft.config.exception.ParseException;
 import com.prutsoft.config.parser.ConfigurationBuilder;
 import com.prutsoft.core.annotation.NotNull;
 import com.prutsoft.core.asserts.ArgumentAssert;
-import com.prutsoft.core.utils.ConversionUtils;
+import com.prutsoft.core.utils.StringUtils;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 /**
  * The reload policy information parser.
+ * <p>
+ * Entry <code>onchange</code> has attributes <code>check-every</code>, the period to check
+ * resource for changes, and <code>watch</code>, whether file resource is watched for changes
+ * instead. Period is required if resource is not watched.
+ * <p>
+ * Optional attributes <code>quiet-period</code> and <code>max-delay</code>, e.g. <code>500ms</code>
+ * or <code>10s</code>, tell how long to wait for resource to stop changing before reload,
+ * and how long the reload can be delayed at most.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2010-01-09
@@ -43,31 +51,23 @@ public class ReloadPolicyParser implements ElementParser {
             if (child.getNodeName().equals("onchange")) {
                 reloadPolicy.setOnChange(true);
 
-                String checkEvery = ParserUtil.parseAttribute(child, "check-every", true);
-                reloadPolicy.setCheckEvery(parsePeriod(checkEvery.trim()));
-            }
-        }
-    }
+                final String watch = ParserUtil.parseAttribute(child, "watch", false);
+                reloadPolicy.setWatch(watch != null && Boolean.valueOf(watch.trim()));
 
-    private Integer parsePeriod(String checkEvery) throws ParseException {
-        int multiplier;
-        if (checkEvery.endsWith("s")) {
-            multiplier = 1;
-        }
-        else if (checkEvery.endsWith("m")) {
-            multiplier = 60;
-        }
-        else if (checkEvery.endsWith("h")) {
-            multiplier = 3600;
-        }
-        else if (checkEvery.endsWith("d")) {
-            multiplier = 86400;
-        }
-        else {
-            throw new ParseException("Unknown duration marker: " + checkEvery.charAt(checkEvery.length() - 1)
-                    + " at attribute 'check-every' on entry 'reload'.");
-        }
+                String checkEvery = ParserUtil.parseAttribute(child, "check-every", !reloadPolicy.isWatch());
+                if (!StringUtils.isEmptyTrimmed(checkEvery)) {
+                    reloadPolicy.setCheckEvery(ParserUtil.parsePeriod(checkEvery.trim(), "check-every", "reload"));
+                }
 
-        return ConversionUtils.getInteger(checkEvery.substring(0, checkEvery.length() - 1)) * multiplier;
+                final String quietPeriod = ParserUtil.parseAttribute(child, "quiet-period", false);
+                if (!StringUtils.isEmptyTrimmed(quietPeriod)) {
+                    reloadPolicy.setQuietPeriod(ParserUtil.parseMillis(quietPeriod.trim(), "quiet-period", "reload"));
+                }
+                final String maxDelay = ParserUtil.parseAttribute(child, "max-delay", false);
+                if (!StringUtils.isEmptyTrimmed(maxDelay)) {
+                    reloadPolicy.setMaxDelay(ParserUtil.parseMillis(maxDelay.trim(), "max-delay", "reload"));
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.parser.xml;
+
+import com.prutsoft.config.exception.ParseException;
+import com.prutsoft.config.parser.ConfigurationBuilder;
+import com.prutsoft.config.resource.ByteBufferInputStream;
+import com.prutsoft.config.resource.ByteBufferResource;
+import com.prutsoft.config.resource.Resource;
+import com.prutsoft.core.annotation.NotNull;
+import com.prutsoft.core.asserts.ArgumentAssert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * The parser for the configurations in XML format, that reads the resource with StAX
+ * in one streaming pass.
+ * <p>
+ * The whole document is never kept in memory: only the currently parsed top-level element
+ * of the configuration is built as DOM element and passed to the same element parsers
+ * as used by {@link XmlConfigurationParser}, so both parsers produce the same configuration.
+ * Memory used by parsing is limited by the size of the largest top-level element.
+ * <p>
+ * If resource is {@link ByteBufferResource}, e.g. file, it's read from the buffer,
+ * so file content is not copied once more through the stream buffers.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-11
+ */
+public class StaxConfigurationParser extends XmlConfigurationParser {
+
+    private static final Logger log = LoggerFactory.getLogger(StaxConfigurationParser.class);
+
+    private static final XMLInputFactory inputFactory = createInputFactory();
+    private static final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        // text is merged into single node, as it's done by DOM parser
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        return factory;
+    }
+
+    @Override
+    public ConfigurationBuilder parse(@NotNull Resource resource) throws ParseException {
+        ArgumentAssert.isNotNull(resource, "Resource can't be null.");
+        ArgumentAssert.isTrue(resource.exists(), "Resource must exist.");
+
+        try {
+            final InputStream resourceStream = (resource instanceof ByteBufferResource
+                    ? new ByteBufferInputStream(((ByteBufferResource) resource).getByteBuffer())
+                    : resource.getInputStream());
+            try {
+                return parse(inputFactory.createXMLStreamReader(resourceStream));
+            }
+            finally {
+                resourceStream.close();
+            }
+        }
+        catch (Exception e) {
+            String msg = "Error to parse configuration " + resource.getName();
+            log.error(msg + ", cause:", e);
+            throw new ParseException(msg, e);
+        }
+    }
+
+    private ConfigurationBuilder parse(XMLStreamReader reader)
+            throws XMLStreamException, ParseException, ParserConfigurationException {
+        try {
+            final ConfigurationBuilder builder = new ConfigurationBuilder();
+            final Document document = newDocument();
+
+            reader.nextTag();
+            if (!getNodeName(reader).equals("configuration")) {
+                throw new ParseException("<configuration> element is not found.");
+            }
+            builder.setName(getAttribute(reader, "name"));
+            builder.setVersion(getAttribute(reader, "version"));
+
+            final List<ElementParser> parsers = getParsersList();
+            while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+                if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) continue;
+
+                final Element element = readElement(reader, document);
+
+                // Try to find appropriate parser for the element.
+                for (ElementParser each : parsers) {
+                    if (each.canParse(element)) {
+                        each.parse(element, builder);
+                        break;
+                    }
+                }
+            }
+
+            return builder;
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads the current element with all its content to the DOM element.
+     *
+     * @param reader   the reader positioned at the start of element.
+     * @param document the document used to create nodes.
+     * @return the read element.
+     * @throws XMLStreamException error to read element.
+     */
+    private static Element readElement(XMLStreamReader reader, Document document) throws XMLStreamException {
+        final Element element = document.createElement(getNodeName(reader));
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            final String prefix = reader.getAttributePrefix(i);
+            final String name = reader.getAttributeLocalName(i);
+            element.setAttribute(prefix == null || prefix.length() == 0 ? name : prefix + ":" + name,
+                    reader.getAttributeValue(i));
+        }
+
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    element.appendChild(readElement(reader, document));
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    element.appendChild(document.createTextNode(reader.getText()));
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    return element;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static String getNodeName(XMLStreamReader reader) {
+        final String prefix = reader.getPrefix();
+        return (prefix == null || prefix.length() == 0 ? reader.getLocalName() : prefix + ":" + reader.getLocalName());
+    }
+
+    private static String getAttribute(XMLStreamReader reader, String name) throws ParseException {
+        final String value = reader.getAttributeValue(null, name);
+        if (value == null) {
+            throw new ParseException("Attribute '" + name + "' is not found.");
+        }
+        return value;
+    }
+
+    private static Document newDocument() throws ParserConfigurationException {
+        // factory is not required to be thread safe
+        synchronized (documentBuilderFactory) {
+            return documentBuilderFactory.newDocumentBuilder().newDocument();
+        }
+    }
+}
@@ -51,6 +51,7 @@ public class SwitchElementParser implements ElementParser {
         final String name = ParserUtil.parseAttribute(node, "name", true);
 
         final SwitchElement switchElement = new SwitchElement(name);
+        switchElement.setCachePolicy(ParserUtil.parseCachePolicy(node, "switch"));
         builder.addSwitch(switchElement);
 
         builder.getBuffer().clear();
@@ -10,6 +10,8 @@ package com.prutsoft.config.parser.xml;
 import com.prutsoft.config.exception.ParseException;
 import com.prutsoft.config.parser.ConfigurationBuilder;
 import com.prutsoft.config.parser.ConfigurationParser;
+import com.prutsoft.config.resource.ByteBufferInputStream;
+import com.prutsoft.config.resource.ByteBufferResource;
 import com.prutsoft.config.resource.Resource;
 import com.prutsoft.core.annotation.NotNull;
 import com.prutsoft.core.asserts.ArgumentAssert;
@@ -146,7 +148,10 @@ public class XmlConfigurationParser implements ConfigurationParser {
         try {
             final ConfigurationBuilder builder = new ConfigurationBuilder();
 
-            InputStream resourceStream = resource.getInputStream();
+            // file resource gives the content it has read to fingerprint it, so file is not read again
+            InputStream resourceStream = (resource instanceof ByteBufferResource
+                    ? new ByteBufferInputStream(((ByteBufferResource) resource).getByteBuffer())
+                    : resource.getInputStream());
 
             DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
             DocumentBuilder documentBuilder = builderFactory.newDocumentBuilder();
@@ -174,7 +179,12 @@ public class XmlConfigurationParser implements ConfigurationParser {
         ParserUtil.parseChildren(builder, node, getParsersList());
     }
 
-    private List<ElementParser> getParsersList() {
+    /**
+     * Gets the parsers of the elements of configuration.
+     *
+     * @return the list of element parsers.
+     */
+    protected List<ElementParser> getParsersList() {
         final List<ElementParser> parsers = new ArrayList<ElementParser>();
         parsers.add(getPropertyParser());
         parsers.add(getExpressionParser());
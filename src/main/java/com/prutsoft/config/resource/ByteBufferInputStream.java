@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.resource;
+
+import com.prutsoft.core.annotation.NotNull;
+import com.prutsoft.core.asserts.ArgumentAssert;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The input stream that reads the remaining content of the byte buffer.
+ * Bytes are read directly from the buffer, so if it's a memory-mapped file, the file content
+ * is not copied to the heap beyond the arrays passed to {@link #read(byte[], int, int)}.
+ * <p>
+ * Stream doesn't change the position of the passed buffer.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-12
+ */
+public class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    public ByteBufferInputStream(@NotNull ByteBuffer buffer) {
+        ArgumentAssert.isNotNull(buffer, "Buffer can't be null.");
+        this.buffer = buffer.duplicate();
+    }
+
+    @Override
+    public int read() {
+        return (buffer.hasRemaining() ? buffer.get() & 0xFF : -1);
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+
+        final int count = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long count) {
+        final int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        buffer.mark();
+    }
+
+    @Override
+    public synchronized void reset() {
+        buffer.reset();
+    }
+}
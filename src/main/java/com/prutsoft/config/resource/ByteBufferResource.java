@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.resource;
+
+import com.prutsoft.core.annotation.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The resource that can give its content as a byte buffer, without copying it through the input stream.
+ * Parsers that can consume buffers check for this interface, and read other resources as streams.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-12
+ * @see ByteBufferInputStream
+ */
+public interface ByteBufferResource extends Resource {
+
+    /**
+     * Gets the resource content as read-only byte buffer.
+     * Each call returns new buffer positioned at the start of content.
+     *
+     * @return the buffer with resource content.
+     * @throws ResourceLoadException error to load resource content.
+     */
+    @NotNull
+    ByteBuffer getByteBuffer() throws ResourceLoadException;
+}
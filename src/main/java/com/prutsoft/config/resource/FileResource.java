@@ -9,19 +9,34 @@ package com.prutsoft.config.resource;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * The file resource. Use it to read data from regular file.
+ * <p>
+ * File can be read as byte buffer with {@link #getByteBuffer()}. Content is read to the heap buffer:
+ * configuration files are often rewritten in place, and reading the mapping of truncated file
+ * crashes the reading thread or the whole JVM. Resources of files that are never changed in place
+ * can map them, see {@link #getMappingThreshold()}.
+ * <p>
+ * Fingerprint is computed from the content read to the buffer, and the buffer is kept until
+ * it's got with {@link #getByteBuffer()}, so the file is read once to fingerprint and parse it.
+ * Fingerprint is remembered with the modification time and the length of the file,
+ * and file is not read again to fingerprint it until one of them is changed.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2010-01-05
  */
-public class FileResource implements Resource {
+public class FileResource implements ByteBufferResource, FingerprintedResource {
 
     private final String fileName;
     private File file;
     private long timestamp;
+    private volatile Content content;
 
     public FileResource(String fileName) {
         this.fileName = fileName;
@@ -38,10 +53,115 @@ public class FileResource implements Resource {
         }
     }
 
+    /**
+     * Gets the file content as read-only buffer. If file is not changed since it was fingerprinted,
+     * the buffer read by {@link #getFingerprint()} is returned, otherwise file is read again.
+     *
+     * @return the buffer with the file content.
+     * @throws ResourceLoadException error to read the file.
+     */
+    public ByteBuffer getByteBuffer() throws ResourceLoadException {
+        final Content current = content;
+        if (current != null && current.buffer != null && current.matches(file)) {
+            // buffer is given once, so content is not kept in memory after it's parsed
+            content = new Content(current.lastModified, current.length, current.fingerprint, null);
+            timestamp = current.lastModified;
+            return current.buffer.duplicate();
+        }
+        timestamp = file.lastModified();
+        return read();
+    }
+
+    /**
+     * Gets the size of the file in bytes starting from which the file is mapped to memory
+     * instead of reading it to the heap buffer. Files are not mapped by default.
+     * <p>
+     * Map only files that are replaced by rename and never truncated or rewritten in place:
+     * reading the mapping of truncated file fails asynchronously with {@link InternalError}
+     * or crashes the JVM. Mapping is released when the buffer is garbage collected,
+     * some platforms don't allow to replace or delete the file until then.
+     *
+     * @return the mapping threshold.
+     */
+    protected long getMappingThreshold() {
+        return Long.MAX_VALUE;
+    }
+
+    private ByteBuffer read() throws ResourceLoadException {
+        try {
+            final RandomAccessFile input = new RandomAccessFile(file, "r");
+            try {
+                final FileChannel channel = input.getChannel();
+                final long size = channel.size();
+                if (size >= getMappingThreshold()) {
+                    // mapping stays valid after the channel is closed
+                    return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                }
+                return read(channel, (int) size);
+            }
+            finally {
+                input.close();
+            }
+        }
+        catch (IOException e) {
+            throw new ResourceLoadException("Error to read file " + fileName + ", cause:", e);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, int size) throws IOException {
+        final ByteBuffer result = ByteBuffer.allocate(size);
+        while (result.hasRemaining() && channel.read(result) != -1) {
+            // file could be truncated after its size was got, then content is read till the end
+        }
+        result.flip();
+        return result.asReadOnlyBuffer();
+    }
+
     public String getName() {
         return fileName;
     }
 
+    /**
+     * Gets the resource file.
+     *
+     * @return the resource file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the fingerprint of the file content. Content is read only if modification time
+     * or length of the file is changed since it was fingerprinted last time.
+     * As the content is known, the file is treated as accessed, so {@link #isChanged()}
+     * returns {@code false} until the file is modified again.
+     *
+     * @return the content fingerprint.
+     * @throws ResourceLoadException error to read the file.
+     */
+    public long getFingerprint() throws ResourceLoadException {
+        Content current = content;
+        if (current == null || !current.matches(file)) {
+            // time and length are got before reading, so file changed while reading is read again next time
+            final long lastModified = file.lastModified();
+            final long length = file.length();
+            final ByteBuffer buffer = read();
+            current = new Content(lastModified, length, ResourceUtil.fingerprint(buffer), buffer);
+            content = current;
+        }
+        timestamp = current.lastModified;
+        return current.fingerprint;
+    }
+
+    /**
+     * Gets the modification time of the file when it was read last time.
+     *
+     * @return the modification time of the read content, 0 if file was not read yet.
+     */
+    public long getReadTimestamp() {
+        return timestamp;
+    }
+
     public boolean isChanged() {
         return timestamp == 0 || timestamp < file.lastModified();
     }
@@ -53,4 +173,32 @@ public class FileResource implements Resource {
     public boolean reload() {
         return exists();
     }
+
+    // ------------------------------------------------------------
+
+    /**
+     * The fingerprinted content of the file.
+     */
+    private static class Content {
+
+        private final long lastModified;
+        private final long length;
+        private final long fingerprint;
+
+        /**
+         * The content that is not got yet, or {@code null}.
+         */
+        private final ByteBuffer buffer;
+
+        private Content(long lastModified, long length, long fingerprint, ByteBuffer buffer) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.fingerprint = fingerprint;
+            this.buffer = buffer;
+        }
+
+        private boolean matches(File file) {
+            return lastModified == file.lastModified() && length == file.length();
+        }
+    }
 }
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.resource;
+
+import com.prutsoft.core.annotation.NotNull;
+import com.prutsoft.core.asserts.ArgumentAssert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Watches files for changes using the file system notifications.
+ * <p>
+ * Each directory is registered with the {@link WatchService} once, however many watched files it contains.
+ * Events are processed by the single daemon thread, which runs the actions of the changed file
+ * once for all events of the file received together.
+ * Nothing is checked while files are not changed.
+ * <p>
+ * Note, that on some platforms {@link WatchService} falls back to polling,
+ * so change can be noticed with delay.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-09
+ */
+public class FileWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(FileWatcher.class);
+
+    private final Object lock = new Object();
+    private final WatchService watchService;
+    private final Map<Path, Directory> directories = new HashMap<Path, Directory>();
+    private final Map<WatchKey, Directory> keys = new HashMap<WatchKey, Directory>();
+
+    /**
+     * Creates the watcher and starts the thread that processes file changes.
+     *
+     * @throws IOException error to create watch service.
+     */
+    public FileWatcher() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+
+        final Thread thread = new Thread(new Runnable() {
+            public void run() {
+                processEvents();
+            }
+        }, "Configuration File Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts watching the file. The action is run each time file is created or modified.
+     *
+     * @param file   the file to watch; can't be null.
+     * @param action the action to run when file is changed; can't be null.
+     * @return the watch, used to stop watching.
+     * @throws IOException error to register file directory.
+     */
+    @NotNull
+    public Watch watch(@NotNull File file, @NotNull Runnable action) throws IOException {
+        ArgumentAssert.isNotNull(file, "File can't be null.");
+        ArgumentAssert.isNotNull(action, "Action can't be null.");
+
+        final Path path = file.getAbsoluteFile().toPath();
+        final Path directoryPath = path.getParent();
+        final Watch watch = new Watch(directoryPath, path.getFileName(), action);
+
+        synchronized (lock) {
+            Directory directory = directories.get(directoryPath);
+            if (directory == null) {
+                final WatchKey key = directoryPath.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                directory = new Directory(key);
+                directories.put(directoryPath, directory);
+                keys.put(key, directory);
+            }
+            directory.add(watch);
+        }
+        return watch;
+    }
+
+    /**
+     * Stops watching all files and stops the thread that processes file changes.
+     */
+    public void close() {
+        try {
+            watchService.close();
+        }
+        catch (IOException e) {
+            log.warn("Error to close file watch service", e);
+        }
+        synchronized (lock) {
+            directories.clear();
+            keys.clear();
+        }
+    }
+
+    private void unwatch(Watch watch) {
+        synchronized (lock) {
+            final Directory directory = directories.get(watch.directory);
+            if (directory != null && directory.remove(watch)) {
+                directories.remove(watch.directory);
+                keys.remove(directory.key);
+                directory.key.cancel();
+            }
+        }
+    }
+
+    private void processEvents() {
+        while (true) {
+            final WatchKey key;
+            try {
+                key = watchService.take();
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+            catch (ClosedWatchServiceException e) {
+                return;
+            }
+
+            final Set<Watch> changed = new LinkedHashSet<Watch>();
+            synchronized (lock) {
+                final Directory directory = keys.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (directory == null) {
+                        continue;
+                    }
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        directory.addAll(changed);
+                    }
+                    else {
+                        directory.addAll((Path) event.context(), changed);
+                    }
+                }
+            }
+            key.reset();
+
+            for (Watch each : changed) {
+                try {
+                    each.action.run();
+                }
+                catch (RuntimeException e) {
+                    log.error("Error to process change of file [" + each.file + "]", e);
+                }
+            }
+        }
+    }
+
+    // ------------------------------------------------------------
+
+    /**
+     * The watch of the file.
+     */
+    public class Watch {
+
+        private final Path directory;
+        private final Path file;
+        private final Runnable action;
+
+        private Watch(Path directory, Path file, Runnable action) {
+            this.directory = directory;
+            this.file = file;
+            this.action = action;
+        }
+
+        /**
+         * Stops watching the file.
+         */
+        public void cancel() {
+            unwatch(this);
+        }
+    }
+
+    /**
+     * The registered directory with watched files.
+     */
+    private static class Directory {
+
+        private final WatchKey key;
+        private final Map<Path, List<Watch>> files = new HashMap<Path, List<Watch>>();
+
+        private Directory(WatchKey key) {
+            this.key = key;
+        }
+
+        private void add(Watch watch) {
+            List<Watch> watches = files.get(watch.file);
+            if (watches == null) {
+                watches = new ArrayList<Watch>();
+                files.put(watch.file, watches);
+            }
+            watches.add(watch);
+        }
+
+        /**
+         * Removes the watch.
+         *
+         * @param watch the watch to remove.
+         * @return {@code true} if directory has no watches anymore.
+         */
+        private boolean remove(Watch watch) {
+            final List<Watch> watches = files.get(watch.file);
+            if (watches != null && watches.remove(watch) && watches.isEmpty()) {
+                files.remove(watch.file);
+            }
+            return files.isEmpty();
+        }
+
+        private void addAll(Path file, Set<Watch> result) {
+            final List<Watch> watches = files.get(file);
+            if (watches != null) {
+                result.addAll(watches);
+            }
+        }
+
+        private void addAll(Set<Watch> result) {
+            for (List<Watch> each : files.values()) {
+                result.addAll(each);
+            }
+        }
+    }
+}
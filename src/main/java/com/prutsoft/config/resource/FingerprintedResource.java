@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.resource;
+
+/**
+ * The resource that knows the fingerprint of its content, e.g. without reading the content
+ * if it's not changed. Loader checks for this interface, and fingerprints other resources
+ * by reading their streams.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-19
+ * @see ResourceUtil#fingerprint(Resource)
+ */
+public interface FingerprintedResource extends Resource {
+
+    /**
+     * Gets the fingerprint of the current resource content.
+     * Resources with the same content have the same fingerprint, and
+     * resources with different content almost always have different fingerprints.
+     * Use {@link ResourceUtil#fingerprint(String, java.io.InputStream)} to compute it.
+     *
+     * @return the content fingerprint.
+     * @throws ResourceLoadException error to read resource content.
+     */
+    long getFingerprint() throws ResourceLoadException;
+}
@@ -42,6 +42,11 @@ import java.util.*;
  * <td> {@code com.prutsoft.config.resource.StringResource} </td>
  * <td> string:&lt;configuration name="test" version="1.0.0"&gt;...&lt;/configuration&gt;</td>
  * </tr>
+ * <tr>
+ * <td> snapshot </td>
+ * <td> {@code com.prutsoft.config.resource.SnapshotResource} </td>
+ * <td> snapshot:/usr/local/jboss/server/app/conf/appconfig.snapshot </td>
+ * </tr>
  * </table>
  *
  * @author Ruslan Khmelyuk
@@ -56,6 +61,7 @@ public class ResourceRegistry {
         registry.putResource("string", StringResource.class);
         registry.putResource("file", FileResource.class);
         registry.putResource("classpath", ClasspathResource.class);
+        registry.putResource("snapshot", SnapshotResource.class);
         return registry;
     }
 
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.resource;
+
+import com.prutsoft.core.annotation.NotNull;
+import com.prutsoft.core.asserts.ArgumentAssert;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * The utils for the resources.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-10
+ */
+public final class ResourceUtil {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Gets the fingerprint of the current resource content.
+     * If resource is {@link FingerprintedResource}, its fingerprint is returned,
+     * otherwise the fingerprint of content read from resource stream is computed.
+     *
+     * @param resource the resource; can't be null.
+     * @return the content fingerprint.
+     * @throws ResourceLoadException error to read resource content.
+     */
+    public static long fingerprint(@NotNull Resource resource) throws ResourceLoadException {
+        ArgumentAssert.isNotNull(resource, "Resource can't be null.");
+        if (resource instanceof FingerprintedResource) {
+            return ((FingerprintedResource) resource).getFingerprint();
+        }
+
+        final InputStream input = resource.getInputStream();
+        if (input == null) {
+            throw new ResourceLoadException("Resource " + resource.getName() + " is not found.");
+        }
+        return fingerprint(resource.getName(), input);
+    }
+
+    /**
+     * Computes the fingerprint of the content read from the stream.
+     * Fingerprint is the CRC32 checksum of the content. Stream is closed after reading.
+     *
+     * @param name  the resource name, used in error message.
+     * @param input the stream with content.
+     * @return the content fingerprint.
+     * @throws ResourceLoadException error to read the content.
+     */
+    public static long fingerprint(String name, InputStream input) throws ResourceLoadException {
+        final CRC32 checksum = new CRC32();
+        try {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                checksum.update(buffer, 0, read);
+            }
+            return checksum.getValue();
+        }
+        catch (IOException e) {
+            throw new ResourceLoadException("Error to read resource " + name + ", cause:", e);
+        }
+        finally {
+            try {
+                input.close();
+            }
+            catch (IOException e) {
+                // ignore, content is read already
+            }
+        }
+    }
+
+    /**
+     * Computes the fingerprint of the content.
+     * Fingerprint is the CRC32 checksum of the content.
+     *
+     * @param content the content.
+     * @return the content fingerprint.
+     */
+    public static long fingerprint(byte[] content) {
+        final CRC32 checksum = new CRC32();
+        checksum.update(content);
+        return checksum.getValue();
+    }
+
+    /**
+     * Computes the fingerprint of the remaining content of the buffer.
+     * Fingerprint is the CRC32 checksum of the content. Position of the buffer is not changed.
+     *
+     * @param content the buffer with content.
+     * @return the content fingerprint.
+     */
+    public static long fingerprint(ByteBuffer content) {
+        final CRC32 checksum = new CRC32();
+        final ByteBuffer buffer = content.duplicate();
+        final byte[] bytes = new byte[Math.min(BUFFER_SIZE, buffer.remaining())];
+        while (buffer.hasRemaining()) {
+            final int count = Math.min(bytes.length, buffer.remaining());
+            buffer.get(bytes, 0, count);
+            checksum.update(bytes, 0, count);
+        }
+        return checksum.getValue();
+    }
+
+    private ResourceUtil() {
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.resource;
+
+/**
+ * The file with configuration snapshot. It's read by the snapshot parser instead of XML parser.
+ * <p>
+ * Snapshot that is not smaller than {@link #MAPPING_THRESHOLD} is mapped to memory,
+ * so content is paged in by the operating system instead of being copied through the heap.
+ * It's safe, as {@link com.prutsoft.config.snapshot.SnapshotWriter} replaces the snapshot file
+ * by rename and never rewrites it in place.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-11
+ * @see com.prutsoft.config.snapshot.SnapshotWriter
+ * @see com.prutsoft.config.snapshot.SnapshotConfigurationParser
+ */
+public class SnapshotResource extends FileResource {
+
+    /**
+     * The size of the snapshot in bytes starting from which it's mapped to memory.
+     */
+    public static final int MAPPING_THRESHOLD = 64 * 1024;
+
+    public SnapshotResource(String fileName) {
+        super(fileName);
+    }
+
+    @Override
+    protected long getMappingThreshold() {
+        return MAPPING_THRESHOLD;
+    }
+}
@@ -11,14 +11,18 @@ import com.prutsoft.core.utils.StringUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 
 /**
  * The resource that represents regular string.
+ * String is read as UTF-8 bytes, the default encoding of XML documents.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2010-01-05
  */
-public class StringResource implements Resource {
+public class StringResource implements FingerprintedResource {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
 
     private String content;
     boolean changed = false;
@@ -37,13 +41,17 @@ public class StringResource implements Resource {
     }
 
     public InputStream getInputStream() {
-        return new ByteArrayInputStream(content.getBytes());
+        return new ByteArrayInputStream(content.getBytes(UTF8));
     }
 
     public String getName() {
         return null;
     }
 
+    public long getFingerprint() {
+        return ResourceUtil.fingerprint(content.getBytes(UTF8));
+    }
+
     public boolean isChanged() {
         return true;//changed;
     }
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.service;
+
+import com.prutsoft.config.Configuration;
+import com.prutsoft.config.resource.Resource;
+import com.prutsoft.core.annotation.NotNull;
+import com.prutsoft.core.asserts.ArgumentAssert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The listener that passes events to another listener asynchronously.
+ * <p>
+ * Events are put to the bounded queue of the listener and processed one by one
+ * in the order they were received by the executor, so slow listener doesn't stop
+ * loading or reloading of configurations. If queue is full, than event is dropped.
+ * <p>
+ * Listener can coalesce events: if event of the configuration is received while previous
+ * event of the same configuration is still in the queue, than it's merged with the queued
+ * event and listener is called once. This is useful for reload listeners, to process configuration once after
+ * burst of reloads, but should not be used when listener is registered for few kinds of events.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-15
+ */
+public class AsyncConfigurationListener implements ConfigurationHolderChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncConfigurationListener.class);
+
+    /**
+     * The default capacity of the events queue.
+     */
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final ConfigurationHolderChangeListener listener;
+    private final Executor executor;
+    private final int capacity;
+    private final boolean coalesce;
+
+    // guarded by queue
+    private final Queue<Event> queue = new ArrayDeque<Event>();
+    private final Map<Configuration, Event> pending = new IdentityHashMap<Configuration, Event>();
+    private boolean dispatching;
+    private long processed;
+    private long dropped;
+    private long coalesced;
+
+    private final Runnable dispatcher = new Runnable() {
+        public void run() {
+            dispatch();
+        }
+    };
+
+    /**
+     * Creates the listener with queue of default capacity, that doesn't coalesce events.
+     *
+     * @param listener the listener to pass events to; can't be null.
+     * @param executor the executor to process events; can't be null.
+     */
+    public AsyncConfigurationListener(@NotNull ConfigurationHolderChangeListener listener,
+                                      @NotNull Executor executor) {
+        this(listener, executor, DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * Creates the listener.
+     *
+     * @param listener the listener to pass events to; can't be null.
+     * @param executor the executor to process events; can't be null.
+     * @param capacity the maximum count of events in the queue; should be positive.
+     * @param coalesce whether to coalesce events of the same configuration.
+     */
+    public AsyncConfigurationListener(@NotNull ConfigurationHolderChangeListener listener,
+                                      @NotNull Executor executor, int capacity, boolean coalesce) {
+        ArgumentAssert.isNotNull(listener, "Listener can't be null.");
+        ArgumentAssert.isNotNull(executor, "Executor can't be null.");
+        ArgumentAssert.isTrue(capacity > 0, "Capacity should be positive.");
+
+        this.listener = listener;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.coalesce = coalesce;
+    }
+
+    public void process(Configuration configuration, Resource resource) {
+        synchronized (queue) {
+            if (coalesce) {
+                final Event previous = pending.get(configuration);
+                if (previous != null) {
+                    previous.resource = resource;
+                    coalesced++;
+                    return;
+                }
+            }
+            if (queue.size() >= capacity) {
+                dropped++;
+                log.warn("Event of configuration [{}] is dropped, as listener queue is full", configuration);
+                return;
+            }
+
+            final Event event = new Event(configuration, resource);
+            queue.add(event);
+            if (coalesce) {
+                pending.put(configuration, event);
+            }
+            if (dispatching) {
+                return;
+            }
+            dispatching = true;
+        }
+        schedule();
+    }
+
+    /**
+     * Runs the dispatcher with the executor; if executor rejects it, than queued events are dropped.
+     */
+    private void schedule() {
+        try {
+            executor.execute(dispatcher);
+        }
+        catch (RejectedExecutionException e) {
+            log.error("Events of listener [" + listener + "] are dropped, as executor rejected them", e);
+            synchronized (queue) {
+                dropped += queue.size();
+                queue.clear();
+                pending.clear();
+                dispatching = false;
+            }
+        }
+    }
+
+    /**
+     * Processes the queued events, until queue is empty.
+     * If listener fails with {@link Error}, the dispatcher is run again for the rest of events
+     * and the error is thrown to the executor.
+     */
+    private void dispatch() {
+        while (true) {
+            final Event event;
+            synchronized (queue) {
+                event = queue.poll();
+                if (event == null) {
+                    dispatching = false;
+                    return;
+                }
+                if (coalesce) {
+                    pending.remove(event.configuration);
+                }
+            }
+
+            try {
+                listener.process(event.configuration, event.resource);
+            }
+            catch (RuntimeException e) {
+                log.error("Error to process event of configuration [" + event.configuration + "]", e);
+            }
+            catch (Error e) {
+                log.error("Error to process event of configuration [" + event.configuration + "]", e);
+                synchronized (queue) {
+                    processed++;
+                    if (queue.isEmpty()) {
+                        dispatching = false;
+                        throw e;
+                    }
+                }
+                schedule();
+                throw e;
+            }
+            synchronized (queue) {
+                processed++;
+            }
+        }
+    }
+
+    /**
+     * Gets the count of events waiting in the queue.
+     *
+     * @return the count of queued events.
+     */
+    public int getQueuedCount() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public long getProcessedCount() {
+        synchronized (queue) {
+            return processed;
+        }
+    }
+
+    /**
+     * Gets the count of events dropped because queue was full or executor rejected them.
+     *
+     * @return the count of dropped events.
+     */
+    public long getDroppedCount() {
+        synchronized (queue) {
+            return dropped;
+        }
+    }
+
+    /**
+     * Gets the count of events that were coalesced with the queued events.
+     *
+     * @return the count of coalesced events.
+     */
+    public long getCoalescedCount() {
+        synchronized (queue) {
+            return coalesced;
+        }
+    }
+
+    // ------------------------------------------------------------
+
+    /**
+     * The queued event.
+     */
+    private static class Event {
+
+        private final Configuration configuration;
+        private Resource resource;
+
+        private Event(Configuration configuration, Resource resource) {
+            this.configuration = configuration;
+            this.resource = resource;
+        }
+    }
+}
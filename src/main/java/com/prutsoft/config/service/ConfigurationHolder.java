@@ -9,30 +9,46 @@ package com.prutsoft.config.service;
 
 import com.prutsoft.config.Configuration;
 import com.prutsoft.config.Version;
+import com.prutsoft.config.VersionRange;
 import com.prutsoft.config.resource.Resource;
 import com.prutsoft.core.annotation.NotNull;
 import com.prutsoft.core.asserts.ArgumentAssert;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The configurations holder.
+ * <p>
+ * Holder is thread-safe. Configurations are kept in the immutable registry, that is replaced
+ * with the changed copy each time configuration is added or removed, so configurations
+ * are found without locks while they are loaded, reloaded or unloaded in other threads.
+ * Configurations with the same name are indexed by version, so configuration is found
+ * by name and version in constant time. They are also sorted by version, so the latest
+ * configuration, the latest configuration within version range or all configurations
+ * within version range are found in logarithmic time.
+ * <p>
+ * Listeners are called in the thread that changed the holder. To not stop loading
+ * with slow listener, wrap it with {@link AsyncConfigurationListener}.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2010-01-07
  */
 public class ConfigurationHolder {
 
-    private Map<String, List<Configuration>> configurations;
+    private final Object lock = new Object();
+    private volatile Registry registry;
 
     private List<ConfigurationHolderChangeListener> addConfigurationListeners;
     private List<ConfigurationHolderChangeListener> removeConfigurationListeners;
+    private List<ConfigurationHolderChangeListener> reloadConfigurationListeners;
 
     
     public ConfigurationHolder() {
-        configurations = new TreeMap<String, List<Configuration>>();
-        addConfigurationListeners = new ArrayList<ConfigurationHolderChangeListener>();
-        removeConfigurationListeners = new ArrayList<ConfigurationHolderChangeListener>();
+        registry = new Registry(new TreeMap<String, Entry>());
+        addConfigurationListeners = new CopyOnWriteArrayList<ConfigurationHolderChangeListener>();
+        removeConfigurationListeners = new CopyOnWriteArrayList<ConfigurationHolderChangeListener>();
+        reloadConfigurationListeners = new CopyOnWriteArrayList<ConfigurationHolderChangeListener>();
     }
 
     /**
@@ -46,16 +62,16 @@ public class ConfigurationHolder {
         ArgumentAssert.isNotNull(configuration, "Configuration can't be null.");
         ArgumentAssert.isNotNull(resource, "Resource can't be null.");
 
-        List<Configuration> list = configurations.get(configuration.getName());
-        if (list == null) {
-            list = new ArrayList<Configuration>();
-            configurations.put(configuration.getName(), list);
+        synchronized (lock) {
+            final Entry entry = registry.entries.get(configuration.getName());
+            final List<Configuration> list = (entry != null
+                    ? new ArrayList<Configuration>(entry.configurations)
+                    : new ArrayList<Configuration>(1));
+            list.add(configuration);
+            update(configuration.getName(), list);
         }
-        boolean result = list.add(configuration);
-        if (result) {
-            fireNewConfiguration(configuration, resource);
-        }
-        return result;
+        fireNewConfiguration(configuration, resource);
+        return true;
     }
 
     /**
@@ -66,54 +82,86 @@ public class ConfigurationHolder {
      */
     public boolean removeConfiguration(Configuration configuration) {
         ArgumentAssert.isNotNull(configuration, "Configuration can't be null.");
-        List<Configuration> list = configurations.get(configuration.getName());
-        if (list != null) {
-            fireRemoveConfiguration(configuration, null);
-            list.remove(configuration);
-            if (list.isEmpty()) {
-                configurations.remove(configuration.getName());
+        if (registry.entries.get(configuration.getName()) == null) {
+            return false;
+        }
+
+        fireRemoveConfiguration(configuration, null);
+        synchronized (lock) {
+            final Entry entry = registry.entries.get(configuration.getName());
+            if (entry != null) {
+                final List<Configuration> list = new ArrayList<Configuration>(entry.configurations);
+                list.remove(configuration);
+                update(configuration.getName(), list);
             }
-            return true;
         }
-        return false;
+        return true;
     }
 
     /**
      * Removes all configurations.
      */
     public void removeConfigurations() {
-        configurations.clear();
+        synchronized (lock) {
+            registry = new Registry(new TreeMap<String, Entry>());
+        }
     }
 
     /**
      * Gets the collection of all configurations.
      *
-     * @return the collection of all configurations.
+     * @return the unmodifiable collection of all configurations.
      */
     public Collection<Configuration> getConfigurations() {
-        Collection<Configuration> result = new ArrayList<Configuration>();
-        for (List<Configuration> each : configurations.values()) {
-            result.addAll(each);
-        }
-        return result;
+        return registry.configurations;
     }
 
     /**
-     * Gets the configuration by it's name.
+     * Gets the configuration by it's name. If there are few configurations with this name,
+     * than configuration with the latest version is returned.
      *
      * @param name the configuration name.
      * @return the found configuration or {@code null} otherwise.
      */
     public Configuration getConfiguration(String name) {
-        List<Configuration> list = configurations.get(name);
-        if (list != null) {
-            if (!list.isEmpty()) {
-                return list.get(0);
-            }
+        final Entry entry = registry.entries.get(name);
+        return (entry != null ? entry.latest : null);
+    }
+
+    /**
+     * Gets the configuration with the latest version within the range.
+     *
+     * @param name  the configuration name.
+     * @param range the versions range; can't be null.
+     * @return the found configuration or {@code null} otherwise.
+     */
+    public Configuration getConfiguration(String name, @NotNull VersionRange range) {
+        ArgumentAssert.isNotNull(range, "Version range can't be null.");
+        final Entry entry = registry.entries.get(name);
+        if (entry != null) {
+            final Map.Entry<Version, Configuration> result = entry.select(range).lastEntry();
+            return (result != null ? result.getValue() : null);
         }
         return null;
     }
 
+    /**
+     * Gets the configurations with version within the range.
+     *
+     * @param name  the configuration name.
+     * @param range the versions range; can't be null.
+     * @return the found configurations ordered by version, can be empty.
+     */
+    @NotNull
+    public List<Configuration> getConfigurations(String name, @NotNull VersionRange range) {
+        ArgumentAssert.isNotNull(range, "Version range can't be null.");
+        final Entry entry = registry.entries.get(name);
+        if (entry != null) {
+            return new ArrayList<Configuration>(entry.select(range).values());
+        }
+        return Collections.emptyList();
+    }
+
     /**
      * Gets the configuration by it's name and version.
      *
@@ -122,19 +170,9 @@ public class ConfigurationHolder {
      * @return the found configuration or {@code null} otherwise.
      */
     public Configuration getConfiguration(String name, String version) {
-        List<Configuration> list = configurations.get(name);
-        if (list != null) {
-            if (!list.isEmpty()) {
-                Version ver = version != null ? Version.parse(version) : null;
-                for (Configuration each : list) {
-                    if (ver == null && each.getVersion() == null) {
-                        return each;
-                    }
-                    if (each.getVersion().equals(ver)) {
-                        return each;
-                    }
-                }
-            }
+        final Entry entry = registry.entries.get(name);
+        if (entry != null) {
+            return entry.versions.get(version != null ? Version.parse(version) : null);
         }
         return null;
     }
@@ -147,21 +185,13 @@ public class ConfigurationHolder {
      * @return the found configuration or {@code null} otherwise.
      */
     public Configuration getConfiguration(String name, Version version) {
-        List<Configuration> list = configurations.get(name);
-        if (list != null) {
-            if (!list.isEmpty()) {
-                for (Configuration each : list) {
-                    if (version == null && each.getVersion() == null) {
-                        return each;
-                    }
-                    if (each.getVersion().equals(version)) {
-                        return each;
-                    }
-                }
-                if (version == null && list.size() == 1)  {
-                    return list.get(0);
-                }
+        final Entry entry = registry.entries.get(name);
+        if (entry != null) {
+            final Configuration result = entry.versions.get(version);
+            if (result == null && version == null && entry.configurations.size() == 1) {
+                return entry.latest;
             }
+            return result;
         }
         return null;
     }
@@ -175,6 +205,93 @@ public class ConfigurationHolder {
         removeConfigurationListeners.add(listener);
     }
 
+    /**
+     * Adds the listener that is called when held configuration is reloaded.
+     *
+     * @param listener the listener; can't be null.
+     * @see #fireReloadConfiguration(Configuration, Resource)
+     */
+    public void addReloadConfigurationListener(ConfigurationHolderChangeListener listener) {
+        ArgumentAssert.isNotNull(listener, "Listener can't be null.");
+        reloadConfigurationListeners.add(listener);
+    }
+
+    /**
+     * Removes the listener added with {@link #addReloadConfigurationListener(ConfigurationHolderChangeListener)}.
+     *
+     * @param listener the listener to remove.
+     */
+    public void removeReloadConfigurationListener(ConfigurationHolderChangeListener listener) {
+        reloadConfigurationListeners.remove(listener);
+    }
+
+    /**
+     * Notifies listeners that held configuration was reloaded.
+     * Reload can change the version or the name of configuration, so configuration
+     * is indexed again before listeners are called.
+     *
+     * @param configuration the reloaded configuration; can't be null.
+     * @param resource      the resource configuration was reloaded from.
+     */
+    public void fireReloadConfiguration(@NotNull Configuration configuration, Resource resource) {
+        ArgumentAssert.isNotNull(configuration, "Configuration can't be null.");
+        synchronized (lock) {
+            reindex(configuration);
+        }
+        for (ConfigurationHolderChangeListener each : reloadConfigurationListeners) {
+            each.process(configuration, resource);
+        }
+    }
+
+    /**
+     * Replaces the registry with the copy, where configurations with specified name are changed.
+     * Should be called holding the lock.
+     *
+     * @param name           the configurations name.
+     * @param configurations the new list of configurations with this name, can be empty.
+     */
+    private void update(String name, List<Configuration> configurations) {
+        final Map<String, Entry> entries = new TreeMap<String, Entry>(registry.entries);
+        if (configurations.isEmpty()) {
+            entries.remove(name);
+        }
+        else {
+            entries.put(name, new Entry(configurations));
+        }
+        registry = new Registry(entries);
+    }
+
+    /**
+     * Rebuilds the registry entry of held configuration, as it's indexed by the version
+     * and the name it had when entry was built. Should be called holding the lock.
+     *
+     * @param configuration the held configuration.
+     */
+    private void reindex(Configuration configuration) {
+        final String name = configuration.getName();
+        final Entry entry = registry.entries.get(name);
+        if (entry != null && entry.configurations.contains(configuration)) {
+            update(name, new ArrayList<Configuration>(entry.configurations));
+            return;
+        }
+
+        // configuration was renamed, so it's moved to the entry with new name
+        for (Map.Entry<String, Entry> each : registry.entries.entrySet()) {
+            if (each.getValue().configurations.contains(configuration)) {
+                final List<Configuration> list = new ArrayList<Configuration>(each.getValue().configurations);
+                list.remove(configuration);
+                update(each.getKey(), list);
+
+                final List<Configuration> renamed = (entry != null
+                        ? new ArrayList<Configuration>(entry.configurations)
+                        : new ArrayList<Configuration>(1));
+                renamed.add(configuration);
+                update(name, renamed);
+                return;
+            }
+        }
+    }
+
     private void fireNewConfiguration(Configuration configuration, Resource resource) {
         for (ConfigurationHolderChangeListener each : addConfigurationListeners) {
             each.process(configuration, resource);
@@ -187,4 +304,69 @@ public class ConfigurationHolder {
         }
     }
 
+    // ------------------------------------------------------------
+
+    /**
+     * The immutable registry of configurations.
+     */
+    private static class Registry {
+
+        private final Map<String, Entry> entries;
+        private final Collection<Configuration> configurations;
+
+        private Registry(Map<String, Entry> entries) {
+            final List<Configuration> all = new ArrayList<Configuration>();
+            for (Entry each : entries.values()) {
+                all.addAll(each.configurations);
+            }
+            this.entries = entries;
+            this.configurations = Collections.unmodifiableList(all);
+        }
+    }
+
+    /**
+     * The immutable list of configurations with the same name, indexed by version.
+     */
+    private static class Entry {
+
+        private final List<Configuration> configurations;
+        private final Map<Version, Configuration> versions;
+        private final NavigableMap<Version, Configuration> sorted;
+
+        /**
+         * The configuration that is found by name only, i.e. the one with the latest version,
+         * or the first added one if configurations have no versions.
+         */
+        private final Configuration latest;
+
+        private Entry(List<Configuration> configurations) {
+            this.configurations = Collections.unmodifiableList(configurations);
+            this.versions = new HashMap<Version, Configuration>(configurations.size() * 2);
+            this.sorted = new TreeMap<Version, Configuration>();
+            for (Configuration each : configurations) {
+                if (!versions.containsKey(each.getVersion())) {
+                    versions.put(each.getVersion(), each);
+                    if (each.getVersion() != null) {
+                        sorted.put(each.getVersion(), each);
+                    }
+                }
+            }
+            this.latest = (!sorted.isEmpty() ? sorted.lastEntry().getValue() : configurations.get(0));
+        }
+
+        private NavigableMap<Version, Configuration> select(VersionRange range) {
+            if (range.isEmpty()) {
+                return new TreeMap<Version, Configuration>();
+            }
+
+            NavigableMap<Version, Configuration> result = sorted;
+            if (range.getLower() != null) {
+                result = result.tailMap(range.getLower(), range.isLowerInclusive());
+            }
+            if (range.getUpper() != null) {
+                result = result.headMap(range.getUpper(), range.isUpperInclusive());
+            }
+            return result;
+        }
+    }
 }
@@ -8,11 +8,9 @@
 package com.prutsoft.config.service;
 
 import com.prutsoft.config.Configuration;
-import com.prutsoft.config.ContextMap;
 import com.prutsoft.config.annotation.ConfigurationBindException;
 import com.prutsoft.config.annotation.Param;
 import com.prutsoft.config.annotation.Property;
-import com.prutsoft.config.annotation.PropertyNotFoundException;
 import com.prutsoft.core.code.Warnings;
 
 import java.lang.annotation.Annotation;
@@ -23,50 +21,87 @@ import java.util.Map;
 
 /**
  * The invocation handler for the dynamic configuration.
+ * <p>
+ * Properties of the interface methods are bound when handler is created,
+ * so method call only finds the accessor and gets the value with it.
+ * Binding fails if any method is not annotated as property or its property
+ * is not found in the configuration.
+ * <p>
+ * Methods of {@link Object} are not bound: {@code equals()} and {@code hashCode()}
+ * are based on proxy identity.
+ * <p>
+ * Configuration interface is implemented with the dynamic proxy and not with a generated
+ * class, as there is no bytecode library among the dependencies; instead, all the work
+ * that doesn't depend on call arguments is done at bind time.
  *
  * @author Ruslan Khmelyuk
  * @since 1.1.0, 2010-01-10
  */
 class ConfigurationInvocationHandler implements InvocationHandler {
 
+    private final Class<?> clazz;
     private final Configuration configuration;
 
-    ConfigurationInvocationHandler(Configuration configuration) {
+    /**
+     * The accessors of the interface methods; not modified after handler is created.
+     */
+    private final Map<Method, PropertyAccessor> accessors;
+
+    /**
+     * Creates the handler and binds properties for the methods of configuration interface.
+     *
+     * @param clazz         the configuration interface.
+     * @param configuration the configuration to get properties from.
+     * @param isStatic      whether configuration is static, i.e. is not reloaded.
+     * @throws ConfigurationBindException method is not annotated as property or property is not found.
+     */
+    ConfigurationInvocationHandler(Class<?> clazz, Configuration configuration,
+                                   boolean isStatic) throws ConfigurationBindException {
+        this.clazz = clazz;
         this.configuration = configuration;
+
+        final Method[] methods = clazz.getMethods();
+        this.accessors = new HashMap<Method, PropertyAccessor>(methods.length * 2);
+        for (Method each : methods) {
+            final Property annotation = each.getAnnotation(Property.class);
+            if (annotation == null) {
+                throw new ConfigurationBindException("Method [" + each.getName()
+                        + "] of [" + clazz.getName() + "] is not annotated as property.");
+            }
+            accessors.put(each, PropertyAccessor.create(configuration,
+                    annotation.value(), getParamNames(each), isStatic));
+        }
     }
 
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        final Property annotation = method.getAnnotation(Property.class);
-        if (annotation == null) {
-            throw new ConfigurationBindException("Method [" + method.getName()
-                    + "] is not annotated as property.");
+        final PropertyAccessor accessor = accessors.get(method);
+        if (accessor != null) {
+            return accessor.getValue(args);
         }
 
-        final String propertyName = annotation.value();
-        if (!configuration.hasElement(propertyName)) {
-            throw new PropertyNotFoundException("Property [" + propertyName
-                    + "] is not found in configuration [" + configuration + "]");
+        final String name = method.getName();
+        if (name.equals("equals") && args != null && args.length == 1) {
+            return proxy == args[0];
+        }
+        else if (name.equals("hashCode") && args == null) {
+            return System.identityHashCode(proxy);
         }
+        else if (name.equals("toString") && args == null) {
+            return clazz.getSimpleName() + "[" + configuration + "]";
+        }
+        throw new ConfigurationBindException("Method [" + name + "] is not bound to property.");
+    }
 
-        try {
-            if (args == null || args.length == 0) {
-                return configuration.getValue(propertyName);
-            }
-            final Map<String, Object> valuesMap = new HashMap<String, Object>();
-            for (int index = 0; index < args.length; index++) {
-                Object value = args[index];
-                Param param = getAnnotation(method.getParameterAnnotations()[index], Param.class);
-                if (param != null) {
-                    valuesMap.put(param.value(), value);
-                }
+    private String[] getParamNames(Method method) {
+        final Annotation[][] annotations = method.getParameterAnnotations();
+        final String[] result = new String[annotations.length];
+        for (int index = 0; index < annotations.length; index++) {
+            final Param param = getAnnotation(annotations[index], Param.class);
+            if (param != null) {
+                result[index] = param.value();
             }
-
-            return configuration.getValue(propertyName, new ContextMap(valuesMap));
-        }
-        catch (Exception e) {
-            throw new ConfigurationBindException("Can't get property [" + propertyName + "] " +
-                    "from configuration [" + configuration + "]", e);
         }
+        return result;
     }
 
     @SuppressWarnings(Warnings.Unchecked)
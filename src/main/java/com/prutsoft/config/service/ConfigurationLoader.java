@@ -7,12 +7,14 @@
 
 package com.prutsoft.config.service;
 
+import com.prutsoft.config.Configuration;
 import com.prutsoft.config.ReloadableConfiguration;
 import com.prutsoft.config.exception.ConfigurationException;
 import com.prutsoft.config.exception.ConfigurationLoadException;
 import com.prutsoft.config.resource.Resource;
 import com.prutsoft.core.annotation.NotNull;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -44,6 +46,8 @@ public interface ConfigurationLoader {
 
     /**
      * Reloads the configuration using specified resource.
+     * If configuration was changed, than reload listeners of the holder
+     * it was loaded to are notified.
      *
      * @param configuration the configuration to reload;
      * @param resource the configuration resource to reload from.
@@ -51,5 +55,20 @@ public interface ConfigurationLoader {
      */
     void reload(@NotNull ReloadableConfiguration configuration, @NotNull Resource resource) throws ConfigurationLoadException;
 
+    /**
+     * Gets the resources the configuration is loaded from: configuration resource
+     * and resources of included configurations.
+     *
+     * @param configuration the loaded configuration; can't be null.
+     * @return the resources of configuration, empty if configuration wasn't loaded by this loader.
+     */
+    @NotNull
+    Collection<Resource> getResources(@NotNull ReloadableConfiguration configuration);
 
+    /**
+     * Forgets the state kept for the configuration, as it is not used anymore.
+     *
+     * @param configuration the unloaded configuration; can't be null.
+     */
+    void unload(@NotNull Configuration configuration);
 }
@@ -8,23 +8,68 @@
 package com.prutsoft.config.service;
 
 import com.prutsoft.config.Configuration;
+import com.prutsoft.config.NamedElement;
+import com.prutsoft.config.NamedElementsContainer;
 import com.prutsoft.config.ReloadableConfiguration;
+import com.prutsoft.config.element.control.SwitchElement;
+import com.prutsoft.config.element.expression.ExpressionElement;
 import com.prutsoft.config.exception.ConfigurationException;
 import com.prutsoft.config.exception.ConfigurationLoadException;
 import com.prutsoft.config.parser.ConfigurationBuilder;
 import com.prutsoft.config.parser.ConfigurationParser;
+import com.prutsoft.config.parser.xml.StaxConfigurationParser;
 import com.prutsoft.config.parser.xml.XmlConfigurationParser;
 import com.prutsoft.config.resource.Resource;
 import com.prutsoft.config.resource.ResourceLoadException;
 import com.prutsoft.config.resource.ResourceRegistry;
+import com.prutsoft.config.resource.ResourceUtil;
+import com.prutsoft.config.resource.SnapshotResource;
+import com.prutsoft.config.snapshot.SnapshotConfigurationParser;
 import com.prutsoft.core.asserts.ArgumentAssert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The default implementation of the configuration loader.
+ * <p>
+ * Resource is parsed with the parser set for its class, e.g. {@link SnapshotResource} is parsed
+ * with {@link SnapshotConfigurationParser}. Other resources are parsed with the default parser.
+ * <p>
+ * For each loaded configuration loader keeps the graph of resources it is loaded from:
+ * the node of the resource refers the nodes of included resources. On reload the fingerprint
+ * of each resource in graph is checked. Only the changed resource is parsed again and only
+ * configurations that include it, directly or not, are built again from already parsed content.
+ * Configurations of not changed resources are reused as is.
+ * If no resource is changed, than configuration is not replaced.
+ * <p>
+ * Parsed resources are shared by all configurations loaded by the loader. The node is cached
+ * by the resource path and fingerprint of its content, so resource included by many
+ * configurations is parsed once and all of them include the same configuration instance.
+ * Node is cached while any loaded configuration uses it. Loaded configuration itself is always
+ * parsed again, so configuration loaded twice gives two configuration instances.
+ * As resources of shared nodes are shared too, their state can't tell whether the resource
+ * is changed for the particular configuration; the reload service tracks it for each configuration.
+ * <p>
+ * If loader is created with {@link ForkJoinPool}, than the list of configurations is loaded
+ * in parallel: configurations and resources included by each configuration are parsed
+ * concurrently. Loaded configurations are stored to the holder in the order of the list,
+ * and only if all of them are loaded.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2010-01-07
@@ -34,10 +79,65 @@ public class ConfigurationLoaderImpl implements ConfigurationLoader {
     private static final Logger log = LoggerFactory.getLogger(ConfigurationLoaderImpl.class);
 
     private final ResourceRegistry resourceRegistry;
-    private final ConfigurationParser parser = new XmlConfigurationParser();
+    private volatile ConfigurationParser parser = new XmlConfigurationParser();
+    private final Map<Class<? extends Resource>, ConfigurationParser> resourceParsers =
+            new ConcurrentHashMap<Class<? extends Resource>, ConfigurationParser>();
+    private final AtomicLong skippedReloads = new AtomicLong();
+
+    // reloadable configuration uses hash code of the current snapshot, so identity is used as key
+    private final Map<Configuration, ResourceNode> graphs =
+            Collections.synchronizedMap(new IdentityHashMap<Configuration, ResourceNode>());
+    private final Map<Configuration, ConfigurationHolder> holders =
+            Collections.synchronizedMap(new IdentityHashMap<Configuration, ConfigurationHolder>());
+
+    private final Map<String, WeakReference<ResourceNode>> nodes = new HashMap<String, WeakReference<ResourceNode>>();
+    private final AtomicLong sharedNodes = new AtomicLong();
+
+    private final ForkJoinPool pool;
 
     public ConfigurationLoaderImpl(ResourceRegistry resourceRegistry) {
+        this(resourceRegistry, null);
+    }
+
+    /**
+     * Creates the loader that loads lists of configurations in parallel with specified pool.
+     *
+     * @param resourceRegistry the resource registry.
+     * @param pool             the pool to parse configurations; if null, configurations are parsed one by one.
+     */
+    public ConfigurationLoaderImpl(ResourceRegistry resourceRegistry, ForkJoinPool pool) {
         this.resourceRegistry = resourceRegistry;
+        this.pool = pool;
+
+        resourceParsers.put(SnapshotResource.class, new SnapshotConfigurationParser());
+    }
+
+    public ConfigurationParser getParser() {
+        return parser;
+    }
+
+    /**
+     * Sets the parser of configuration resources, e.g. {@link StaxConfigurationParser}
+     * to parse large configurations. By default {@link XmlConfigurationParser} is used.
+     *
+     * @param parser the configuration parser; can't be null.
+     */
+    public void setParser(ConfigurationParser parser) {
+        ArgumentAssert.isNotNull(parser, "Parser can't be null.");
+        this.parser = parser;
+    }
+
+    /**
+     * Sets the parser for resources of specified class, e.g. to parse resources
+     * of own prefix in own format. Other resources are parsed with {@link #getParser() default parser}.
+     *
+     * @param resourceClass the class of resources; can't be null.
+     * @param parser        the parser of the resources; can't be null.
+     */
+    public void setParser(Class<? extends Resource> resourceClass, ConfigurationParser parser) {
+        ArgumentAssert.isNotNull(resourceClass, "Resource class can't be null.");
+        ArgumentAssert.isNotNull(parser, "Parser can't be null.");
+        resourceParsers.put(resourceClass, parser);
     }
 
     public void load(String configurationName, ConfigurationHolder holder) throws ConfigurationLoadException {
@@ -46,14 +146,8 @@ public class ConfigurationLoaderImpl implements ConfigurationLoader {
 
         try {
             final Resource resource = configurationResource(configurationName);
-            final Configuration configuration = parseConfiguration(resource);
-
-            if (configuration.getReloadPolicy() != null) {
-                holder.addConfiguration(new ReloadableConfiguration(configuration), resource);
-            }
-            else {
-                holder.addConfiguration(configuration, resource);
-            }
+            register(parseNode(configurationName, resource, ResourceUtil.fingerprint(resource),
+                    Collections.<String, ResourceNode>emptyMap(), false), holder);
         }
         catch (ConfigurationLoadException e) {
             throw e;
@@ -70,8 +164,69 @@ public class ConfigurationLoaderImpl implements ConfigurationLoader {
         ArgumentAssert.isNotNull(configurations, "Configurations list can't be null.");
         ArgumentAssert.isNotNull(holder, "Configuration Holder can't be null.");
 
+        final List<ParseTask> tasks = new ArrayList<ParseTask>(configurations.size());
         for (String each : configurations) {
-            load(each, holder);
+            ArgumentAssert.isNotEmpty(each, "Configuration is required.");
+            tasks.add(new ParseTask(each, null, false));
+        }
+
+        if (pool != null) {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+        else {
+            for (ParseTask each : tasks) {
+                each.invoke();
+            }
+        }
+
+        final List<String> failed = new ArrayList<String>();
+        final List<Exception> errors = new ArrayList<Exception>();
+        for (ParseTask each : tasks) {
+            if (each.error != null) {
+                log.error("Can't load configuration [" + each.path + "]", each.error);
+                failed.add(each.path);
+                errors.add(each.error);
+            }
+        }
+        if (!errors.isEmpty()) {
+            // the first error is the cause, others are suppressed
+            final ConfigurationLoadException error = new ConfigurationLoadException(
+                    "Can't load configurations " + failed, errors.get(0));
+            for (Exception each : errors.subList(1, errors.size())) {
+                error.addSuppressed(each);
+            }
+            throw error;
+        }
+
+        for (ParseTask each : tasks) {
+            register(each.getRawResult(), holder);
+        }
+    }
+
+    /**
+     * Stores the loaded configuration to the holder.
+     *
+     * @param node   the node of the parsed configuration resource.
+     * @param holder the configurations holder.
+     */
+    private void register(ResourceNode node, ConfigurationHolder holder) {
+        final Configuration configuration = node.getConfiguration();
+
+        if (configuration.getReloadPolicy() != null) {
+            final ReloadableConfiguration reloadable = new ReloadableConfiguration(configuration);
+            reloadable.setFingerprint(node.getFingerprint());
+            graphs.put(reloadable, node);
+            holders.put(reloadable, holder);
+            holder.addConfiguration(reloadable, node.getResource());
+        }
+        else {
+            graphs.put(configuration, node);
+            holder.addConfiguration(configuration, node.getResource());
         }
     }
 
@@ -83,34 +238,271 @@ public class ConfigurationLoaderImpl implements ConfigurationLoader {
 
         try {
             resource.reload();
-            final Configuration newConfiguration = parseConfiguration(resource);
-            configuration.setConfiguration(newConfiguration);
+
+            final ResourceNode node = graphs.get(configuration);
+            final ResourceNode newNode;
+            if (node != null) {
+                newNode = refreshNode(node, resource);
+            }
+            else {
+                // configuration wasn't loaded by this loader, so only its resource fingerprint is known
+                final long fingerprint = ResourceUtil.fingerprint(resource);
+                newNode = (fingerprint != configuration.getFingerprint()
+                        ? parseNode(configuration.getName(), resource, fingerprint,
+                                Collections.<String, ResourceNode>emptyMap(), true)
+                        : null);
+            }
+
+            if (newNode == null || newNode == node) {
+                skippedReloads.incrementAndGet();
+                log.debug("Skipped reload of not changed configuration [{}]", configuration);
+                return;
+            }
+
+            discardCaches(newNode.getConfiguration());
+            configuration.setConfiguration(newNode.getConfiguration());
+            configuration.setFingerprint(newNode.getFingerprint());
+            graphs.put(configuration, newNode);
+            purgeNodes();
         }
         catch (Exception e) {
             String msg = "Can't load configuration [" + configuration + "]";
             log.error(msg, e);
             throw new ConfigurationLoadException(msg, e);
         }
+
+        final ConfigurationHolder holder = holders.get(configuration);
+        if (holder != null) {
+            holder.fireReloadConfiguration(configuration, resource);
+        }
+    }
+
+    public Collection<Resource> getResources(ReloadableConfiguration configuration) {
+        ArgumentAssert.isNotNull(configuration, "Configuration is required.");
+
+        final ResourceNode node = graphs.get(configuration);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+
+        final List<Resource> result = new ArrayList<Resource>();
+        node.collectResources(result);
+        return result;
+    }
+
+    public void unload(Configuration configuration) {
+        ArgumentAssert.isNotNull(configuration, "Configuration is required.");
+        graphs.remove(configuration);
+        holders.remove(configuration);
+        purgeNodes();
+    }
+
+    /**
+     * Gets the count of reloads that were skipped, as resources content was not changed.
+     *
+     * @return the count of skipped reloads.
+     */
+    public long getSkippedReloadCount() {
+        return skippedReloads.get();
     }
 
     /**
-     * Parsers the configuration resource and returns the parsed configuration.
+     * Gets the count of times the already parsed resource was reused instead of parsing it again.
      *
-     * @param resource the resource to parser.
-     * @return the parsed configuration.
-     * @throws ConfigurationException error to parser configuration.
+     * @return the count of shared resources.
      */
-    // TODO - add support for multiple configuration parsers
-    private Configuration parseConfiguration(Resource resource) throws ConfigurationException {
-        final ConfigurationBuilder builder = parser.parse(resource);
+    public long getSharedNodeCount() {
+        return sharedNodes.get();
+    }
+
+    /**
+     * Parses the configuration resource and included resources.
+     * If resource with the same content was parsed already and it can be shared,
+     * than its node is reused. Fingerprint is got before parsing: if resource is changed
+     * while parsing, it will be parsed again on next reload.
+     *
+     * @param path        the path of the resource.
+     * @param resource    the resource to parse.
+     * @param fingerprint the fingerprint of resource content.
+     * @param previous    the previous nodes of included resources by path, they are reused if not changed.
+     * @param shared      whether the already parsed node can be reused; it's not for loaded configuration.
+     * @return the node of parsed resource.
+     * @throws ConfigurationException error to parse configuration.
+     */
+    private ResourceNode parseNode(String path, Resource resource, long fingerprint,
+                                   Map<String, ResourceNode> previous, boolean shared) throws ConfigurationException {
+        final ResourceNode cached = (shared ? getCachedNode(path, fingerprint) : null);
+        if (cached != null) {
+            sharedNodes.incrementAndGet();
+            return refreshChildren(cached);
+        }
+
+        final ConfigurationBuilder builder = getParser(resource).parse(resource);
+        final List<ResourceNode> children = parseChildren(builder.getConfigurationPaths(), previous);
 
-        for (String each : builder.getConfigurationPaths()) {
-            Resource eachResource = configurationResource(each);
-            Configuration eachConfiguration = parseConfiguration(eachResource);
-            builder.addConfiguration(eachConfiguration);
+        for (ResourceNode each : children) {
+            builder.addConfiguration(each.getConfiguration());
         }
 
-        return builder.toConfiguration();
+        return cacheNode(new ResourceNode(path, resource, fingerprint, builder, children, builder.toConfiguration()));
+    }
+
+    /**
+     * Parses the included resources. If run by fork-join pool, resources are parsed in parallel.
+     *
+     * @param paths    the paths of included resources.
+     * @param previous the previous nodes of included resources by path, they are reused if not changed.
+     * @return the nodes of included resources, in order of paths.
+     * @throws ConfigurationException error to parse configuration.
+     */
+    private List<ResourceNode> parseChildren(List<String> paths, Map<String, ResourceNode> previous)
+            throws ConfigurationException {
+        final List<ParseTask> tasks = new ArrayList<ParseTask>(paths.size());
+        for (String each : paths) {
+            tasks.add(new ParseTask(each, previous.get(each), true));
+        }
+
+        if (tasks.size() > 1 && ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(tasks);
+        }
+        else {
+            for (ParseTask each : tasks) {
+                each.invoke();
+            }
+        }
+
+        final List<ResourceNode> result = new ArrayList<ResourceNode>(tasks.size());
+        for (ParseTask each : tasks) {
+            if (each.error instanceof ConfigurationException) {
+                throw (ConfigurationException) each.error;
+            }
+            else if (each.error != null) {
+                throw new ConfigurationLoadException("Can't load configuration [" + each.path + "]", each.error);
+            }
+            result.add(each.getRawResult());
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether resource or included resources are changed and rebuilds the changed part of graph.
+     *
+     * @param node     the node to refresh.
+     * @param resource the resource of the node.
+     * @return the same node if nothing is changed, otherwise the new node.
+     * @throws ConfigurationException error to parse configuration.
+     */
+    private ResourceNode refreshNode(ResourceNode node, Resource resource) throws ConfigurationException {
+        final long fingerprint = ResourceUtil.fingerprint(resource);
+        if (fingerprint != node.getFingerprint()) {
+            return parseNode(node.getPath(), resource, fingerprint, node.getChildrenByPath(), true);
+        }
+        return refreshChildren(node);
+    }
+
+    /**
+     * Checks whether included resources are changed and rebuilds the configuration
+     * of not changed resource if they are.
+     *
+     * @param node the node to refresh.
+     * @return the same node if nothing is changed, otherwise the new node.
+     * @throws ConfigurationException error to parse configuration.
+     */
+    private ResourceNode refreshChildren(ResourceNode node) throws ConfigurationException {
+        boolean changed = false;
+        final List<ResourceNode> children = new ArrayList<ResourceNode>();
+        for (ResourceNode each : node.getChildren()) {
+            final ResourceNode child = refreshNode(each, each.getResource());
+            changed |= (child != each);
+            children.add(child);
+        }
+
+        if (!changed) {
+            return node;
+        }
+
+        // other configuration could rebuild the shared node already
+        final ResourceNode cached = getCachedNode(node.getPath(), node.getFingerprint());
+        if (cached != null && cached.getChildren().equals(children)) {
+            return cached;
+        }
+
+        // resource content is the same, so configuration is built again from parsed content
+        final ConfigurationBuilder builder = node.getBuilder();
+        final Configuration configuration;
+        synchronized (builder) {
+            builder.clearConfigurations();
+            for (ResourceNode each : children) {
+                builder.addConfiguration(each.getConfiguration());
+            }
+            configuration = builder.toConfiguration();
+        }
+        return cacheNode(new ResourceNode(node.getPath(), node.getResource(),
+                node.getFingerprint(), builder, children, configuration));
+    }
+
+    /**
+     * Discards evaluation caches of the configuration elements and elements of included configurations.
+     * Reloaded configuration reuses elements of not changed resources, but their results are not.
+     *
+     * @param configuration the reloaded configuration.
+     */
+    private static void discardCaches(Configuration configuration) {
+        discardCaches((NamedElementsContainer) configuration);
+        for (Configuration each : configuration.getIncludedConfigurations()) {
+            discardCaches(each);
+        }
+    }
+
+    private static void discardCaches(NamedElementsContainer container) {
+        for (NamedElement each : container.getElements()) {
+            if (each instanceof ExpressionElement) {
+                ((ExpressionElement) each).discardCache();
+            }
+            else if (each instanceof SwitchElement) {
+                ((SwitchElement) each).discardCache();
+            }
+            else if (each instanceof NamedElementsContainer) {
+                discardCaches((NamedElementsContainer) each);
+            }
+        }
+    }
+
+    private ConfigurationParser getParser(Resource resource) {
+        final ConfigurationParser result = resourceParsers.get(resource.getClass());
+        return (result != null ? result : parser);
+    }
+
+    private ResourceNode getCachedNode(String path, long fingerprint) {
+        synchronized (nodes) {
+            final WeakReference<ResourceNode> reference = nodes.get(nodeKey(path, fingerprint));
+            return (reference != null ? reference.get() : null);
+        }
+    }
+
+    private ResourceNode cacheNode(ResourceNode node) {
+        synchronized (nodes) {
+            nodes.put(nodeKey(node.getPath(), node.getFingerprint()), new WeakReference<ResourceNode>(node));
+        }
+        return node;
+    }
+
+    /**
+     * Removes the cached nodes that are not used anymore.
+     */
+    private void purgeNodes() {
+        synchronized (nodes) {
+            final Iterator<WeakReference<ResourceNode>> iterator = nodes.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().get() == null) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static String nodeKey(String path, long fingerprint) {
+        return fingerprint + ":" + path;
     }
 
     /**
@@ -131,4 +523,40 @@ public class ConfigurationLoaderImpl implements ConfigurationLoader {
         return resource;
     }
 
+    // ------------------------------------------------------------
+
+    /**
+     * Parses the resource by path, or refreshes the previous node of resource if it's known.
+     * Error is remembered instead of thrown, so errors of all tasks can be reported.
+     */
+    private class ParseTask extends RecursiveTask<ResourceNode> {
+
+        private final String path;
+        private final ResourceNode previous;
+        private final boolean shared;
+        private Exception error;
+
+        private ParseTask(String path, ResourceNode previous, boolean shared) {
+            this.path = path;
+            this.previous = previous;
+            this.shared = shared;
+        }
+
+        @Override
+        protected ResourceNode compute() {
+            try {
+                if (previous != null) {
+                    return refreshNode(previous, previous.getResource());
+                }
+                final Resource resource = configurationResource(path);
+                return parseNode(path, resource, ResourceUtil.fingerprint(resource),
+                        Collections.<String, ResourceNode>emptyMap(), shared);
+            }
+            catch (Exception e) {
+                error = e;
+                return null;
+            }
+        }
+    }
+
 }
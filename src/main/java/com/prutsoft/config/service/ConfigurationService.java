@@ -9,9 +9,12 @@ package com.prutsoft.config.service;
 
 import com.prutsoft.config.Configuration;
 import com.prutsoft.config.Version;
+import com.prutsoft.config.VersionRange;
 import com.prutsoft.config.exception.ConfigurationException;
 import com.prutsoft.config.resource.ResourceRegistry;
 
+import java.util.List;
+
 /**
  * The interface of the configuration service.
  * Use configuration manager to access configuration,
@@ -89,6 +92,24 @@ public interface ConfigurationService {
      */
     Configuration configuration(String name, String version);
 
+    /**
+     * Gets configuration with specified name and the latest version within the range.
+     *
+     * @param name  the configuration name; can't be null.
+     * @param range the versions range; can't be null.
+     * @return the configuration with specified name and version within range or {@code null} if not found.
+     */
+    Configuration configuration(String name, VersionRange range);
+
+    /**
+     * Gets configurations with specified name and version within the range.
+     *
+     * @param name  the configuration name; can't be null.
+     * @param range the versions range; can't be null.
+     * @return the configurations ordered by version, can be empty.
+     */
+    List<Configuration> configurations(String name, VersionRange range);
+
     /**
      * Returns the static implementation of interface annotated with
      * {@link com.prutsoft.config.annotation.Configuration} annotation.
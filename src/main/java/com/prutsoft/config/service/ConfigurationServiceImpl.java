@@ -10,8 +10,10 @@ package com.prutsoft.config.service;
 import com.prutsoft.config.Configuration;
 import com.prutsoft.config.ConfigurationWrapper;
 import com.prutsoft.config.Version;
+import com.prutsoft.config.VersionRange;
 import com.prutsoft.config.annotation.ConfigurationBindException;
 import com.prutsoft.config.exception.ConfigurationException;
+import com.prutsoft.config.resource.Resource;
 import com.prutsoft.config.resource.ResourceRegistry;
 import com.prutsoft.core.asserts.ArgumentAssert;
 import com.prutsoft.core.code.Warnings;
@@ -19,6 +21,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * The configuration service implementation.
@@ -34,7 +38,31 @@ public class ConfigurationServiceImpl implements ConfigurationService {
     private ResourceRegistry resourceRegistry = ResourceRegistry.create();
     private ConfigurationHolder configurationsHolder = new ConfigurationHolder();
     private ConfigurationLoader configurationLoader = new ConfigurationLoaderImpl(resourceRegistry);
-    private ReloadService reloadService = new ReloadServiceImpl(configurationLoader, configurationsHolder);
+    private ReloadService reloadService;
+
+    public ConfigurationServiceImpl() {
+        reloadService = new ReloadServiceImpl(configurationLoader, configurationsHolder);
+        addUnloadListener();
+    }
+
+    /**
+     * Creates configuration service that checks and reloads configurations with specified executor.
+     * Executor is not shutdown when service is destroyed.
+     *
+     * @param reloadExecutor the executor to check and reload configurations; can't be null.
+     */
+    public ConfigurationServiceImpl(ScheduledExecutorService reloadExecutor) {
+        reloadService = new ReloadServiceImpl(configurationLoader, configurationsHolder, reloadExecutor);
+        addUnloadListener();
+    }
+
+    private void addUnloadListener() {
+        configurationsHolder.addRemoveConfigurationListener(new ConfigurationHolderChangeListener() {
+            public void process(Configuration configuration, Resource resource) {
+                configurationLoader.unload(configuration);
+            }
+        });
+    }
 
     public ResourceRegistry getResourceRegistry() {
         return resourceRegistry;
@@ -90,6 +118,16 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         return configurationsHolder.getConfiguration(name, version);
     }
 
+    public Configuration configuration(String name, VersionRange range) {
+        ArgumentAssert.isNotEmpty(name, "Name can't be null or empty.");
+        return configurationsHolder.getConfiguration(name, range);
+    }
+
+    public List<Configuration> configurations(String name, VersionRange range) {
+        ArgumentAssert.isNotEmpty(name, "Name can't be null or empty.");
+        return configurationsHolder.getConfigurations(name, range);
+    }
+
     public <T> T staticConfiguration(Class<T> clazz, String name) {
         return staticConfiguration(clazz, name, (Version) null);
     }
@@ -121,7 +159,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         }
 
         return (T) Proxy.newProxyInstance(clazz.getClassLoader(),
-                new Class[] {clazz}, new ConfigurationInvocationHandler(configuration));
+                new Class[] {clazz}, new ConfigurationInvocationHandler(clazz, configuration, true));
     }
 
     public <T> T dynamicConfiguration(Class<T> clazz, String name) {
@@ -152,6 +190,6 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         }
 
         return (T) Proxy.newProxyInstance(clazz.getClassLoader(),
-                new Class[] {clazz}, new ConfigurationInvocationHandler(configuration));
+                new Class[] {clazz}, new ConfigurationInvocationHandler(clazz, configuration, false));
     }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.service;
+
+import com.prutsoft.config.ConfigKey;
+import com.prutsoft.config.Configuration;
+import com.prutsoft.config.ContextMap;
+import com.prutsoft.config.NamedElement;
+import com.prutsoft.config.annotation.ConfigurationBindException;
+import com.prutsoft.config.annotation.PropertyNotFoundException;
+import com.prutsoft.config.element.property.Property;
+
+/**
+ * The accessor of the property bound to the method of annotated configuration interface.
+ * Accessor is created when configuration is bound, so property is resolved
+ * and parameter names are found once, not on each method call.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-06
+ */
+abstract class PropertyAccessor {
+
+    /**
+     * Creates the property accessor.
+     * <p>
+     * For the static configuration, value of the regular property accessed without parameters
+     * is read once, so accessor just returns it.
+     *
+     * @param configuration the configuration to get property from.
+     * @param property      the property name.
+     * @param paramNames    the context names of method parameters, {@code null} for not annotated parameters.
+     * @param isStatic      whether configuration is static, i.e. is not reloaded.
+     * @return the created accessor.
+     * @throws PropertyNotFoundException the property is not found in configuration.
+     */
+    static PropertyAccessor create(Configuration configuration, String property,
+                                   String[] paramNames, boolean isStatic) throws PropertyNotFoundException {
+        final NamedElement element = configuration.findElement(property);
+        if (element == null) {
+            throw notFound(configuration, property);
+        }
+
+        final ConfigKey<Object> key = configuration.key(property, Object.class);
+        if (isStatic && paramNames.length == 0 && element instanceof Property) {
+            return new ConstantAccessor(configuration, property, key.get());
+        }
+        return new KeyAccessor(configuration, key, paramNames, !isStatic);
+    }
+
+    private static PropertyNotFoundException notFound(Configuration configuration, String property) {
+        return new PropertyNotFoundException("Property [" + property
+                + "] is not found in configuration [" + configuration + "]");
+    }
+
+    // ------------------------------------------------------------
+
+    protected final Configuration configuration;
+    protected final String property;
+
+    protected PropertyAccessor(Configuration configuration, String property) {
+        this.configuration = configuration;
+        this.property = property;
+    }
+
+    /**
+     * Gets the property value.
+     *
+     * @param args the method call arguments, can be null.
+     * @return the property value.
+     * @throws ConfigurationBindException error to get property value.
+     */
+    abstract Object getValue(Object[] args) throws ConfigurationBindException;
+
+    protected ConfigurationBindException accessError(Exception cause) {
+        return new ConfigurationBindException("Can't get property [" + property + "] " +
+                "from configuration [" + configuration + "]", cause);
+    }
+
+    // ------------------------------------------------------------
+
+    /**
+     * Returns the value that was read on bind.
+     */
+    private static class ConstantAccessor extends PropertyAccessor {
+
+        private final Object value;
+
+        private ConstantAccessor(Configuration configuration, String property, Object value) {
+            super(configuration, property);
+            this.value = value;
+        }
+
+        Object getValue(Object[] args) {
+            return value;
+        }
+    }
+
+    /**
+     * Gets the value with property handle, using method arguments as context.
+     * Property existence is checked on each call only if configuration can be reloaded,
+     * as reloaded configuration may not have the property anymore.
+     */
+    private static class KeyAccessor extends PropertyAccessor {
+
+        private final ConfigKey<Object> key;
+        private final String[] paramNames;
+        private final boolean checkExists;
+
+        private KeyAccessor(Configuration configuration, ConfigKey<Object> key,
+                            String[] paramNames, boolean checkExists) {
+            super(configuration, key.getProperty());
+            this.key = key;
+            this.paramNames = paramNames;
+            this.checkExists = checkExists;
+        }
+
+        Object getValue(Object[] args) throws ConfigurationBindException {
+            if (checkExists && !key.exists()) {
+                throw notFound(configuration, property);
+            }
+
+            try {
+                if (args == null || args.length == 0) {
+                    return key.get();
+                }
+
+                final ContextMap context = new ContextMap();
+                for (int index = 0; index < args.length; index++) {
+                    if (paramNames[index] != null) {
+                        context.put(paramNames[index], args[index]);
+                    }
+                }
+                return key.get(context);
+            }
+            catch (Exception e) {
+                throw accessError(e);
+            }
+        }
+    }
+}
@@ -9,17 +9,62 @@ package com.prutsoft.config.service;
 
 import com.prutsoft.config.Configuration;
 import com.prutsoft.config.ReloadableConfiguration;
+import com.prutsoft.config.element.reload.ReloadPolicy;
+import com.prutsoft.config.resource.FileResource;
+import com.prutsoft.config.resource.FileWatcher;
 import com.prutsoft.config.resource.Resource;
+import com.prutsoft.core.asserts.ArgumentAssert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The configurations re-loader service implementation.
+ * <p>
+ * Resources are checked for changes periodically. If reload policy tells to watch
+ * the resource and it's a file, than it's watched with {@link FileWatcher} instead,
+ * so configuration is reloaded right after the file is changed.
+ * Resources of included configurations are checked and watched too,
+ * so change of included file reloads the configuration that includes it.
+ * As included resource can be shared by several configurations, modification times
+ * of files are remembered by the task of each configuration, and not taken from the resource,
+ * so reload of one configuration doesn't hide the change from others.
+ * <p>
+ * Checks and reloads are run by the {@link ScheduledExecutorService}, by default it's the pool
+ * of {@link #DEFAULT_PARALLELISM} daemon threads. Each configuration is checked by its own task,
+ * so slow reload of one configuration doesn't stop checks of others while there are free threads,
+ * and error of one task doesn't stop others. First check of each configuration is delayed
+ * randomly within the check period, so configurations with the same period are not checked
+ * all at once.
+ * <p>
+ * Configurations are added and removed by the loading threads, while reload tasks run in the
+ * executor, so tasks are kept in concurrent maps.
+ * <p>
+ * Found change doesn't reload configuration at once, but only after the quiet period
+ * of reload policy passes without new changes, so burst of changes, e.g. file saved
+ * by editor in several writes, is reloaded once. Reload is not delayed for longer
+ * than maximum delay of reload policy after the first change, even if resource keeps changing.
+ * While reload is delayed, the same change found again by the next check doesn't delay it more;
+ * changes are told apart by the modification time of configuration files.
  *
  * @author Ruslan Khmelyuk
  * @since 1.0.0, 2010-01-07
@@ -30,14 +75,63 @@ public class ReloadServiceImpl implements ReloadService {
 
     private static final long ONE_SECOND = 1000L;
 
+    /**
+     * The default count of reload threads.
+     */
+    public static final int DEFAULT_PARALLELISM = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Creates the executor with specified count of daemon reload threads.
+     *
+     * @param parallelism the count of reload threads; should be positive.
+     * @return the created executor.
+     */
+    public static ScheduledExecutorService createExecutor(int parallelism) {
+        ArgumentAssert.isTrue(parallelism > 0, "Parallelism should be positive.");
+        return Executors.newScheduledThreadPool(parallelism, new ReloadThreadFactory());
+    }
+
+    // ------------------------------------------------------------
+
     private ConfigurationLoader configurationLoader;
 
-    private Timer configurationReloadTimer = new Timer("Configuration Reload Timer", true);
-    private Map<Configuration, TimerTask> reloadTasks = new HashMap<Configuration, TimerTask>();
-    private Map<Configuration, Resource> suspendedTasks = new HashMap<Configuration, Resource>();
+    private final ScheduledExecutorService executor;
+    private final boolean ownExecutor;
+
+    private final Map<Configuration, ConfigurationReloadTask> reloadTasks =
+            new ConcurrentHashMap<Configuration, ConfigurationReloadTask>();
+    private final Map<Configuration, Resource> suspendedTasks = new ConcurrentHashMap<Configuration, Resource>();
+
+    // created on first watch, guarded by this
+    private FileWatcher fileWatcher;
+
+    private final AtomicLong reloadCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
 
     public ReloadServiceImpl(ConfigurationLoader configurationLoader, ConfigurationHolder configurationHolder) {
+        this(configurationLoader, configurationHolder, createExecutor(DEFAULT_PARALLELISM), true);
+    }
+
+    /**
+     * Creates reload service that uses specified executor to check and reload configurations.
+     * Executor is not shutdown with the service.
+     *
+     * @param configurationLoader the configuration loader.
+     * @param configurationHolder the configuration holder.
+     * @param executor            the executor for configuration checks and reloads; can't be null.
+     */
+    public ReloadServiceImpl(ConfigurationLoader configurationLoader, ConfigurationHolder configurationHolder,
+                             ScheduledExecutorService executor) {
+        this(configurationLoader, configurationHolder, executor, false);
+    }
+
+    private ReloadServiceImpl(ConfigurationLoader configurationLoader, ConfigurationHolder configurationHolder,
+                              ScheduledExecutorService executor, boolean ownExecutor) {
+        ArgumentAssert.isNotNull(executor, "Executor can't be null.");
+
         this.configurationLoader = configurationLoader;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
 
         configurationHolder.addNewConfigurationListener(new ConfigurationHolderChangeListener() {
             public void process(Configuration configuration, Resource resource) {
@@ -54,16 +148,15 @@ public class ReloadServiceImpl implements ReloadService {
     }
 
     private void startFor(Configuration configuration, Resource resource) {
-        startTimerTask(configuration, resource);
+        startReloadTask(configuration, resource);
 
         log.debug("Started reload for configuration [{}]", configuration.getName());
     }
 
     private void removeFor(Configuration configuration) {
-        TimerTask task = reloadTasks.remove(configuration);
+        ConfigurationReloadTask task = reloadTasks.remove(configuration);
         if (task != null) {
             task.cancel();
-            configurationReloadTimer.purge();
             log.debug("Removed reload for configuration [{}]", configuration.getName());
         }
     }
@@ -83,7 +176,7 @@ public class ReloadServiceImpl implements ReloadService {
     }
 
     public void suspend(Configuration configuration) {
-        ConfigurationReloadTimerTask task = (ConfigurationReloadTimerTask) reloadTasks.get(configuration);
+        ConfigurationReloadTask task = reloadTasks.get(configuration);
         if (task != null) {
             suspendedTasks.put(task.getConfiguration(), task.getResource());
             task.cancel();
@@ -95,41 +188,146 @@ public class ReloadServiceImpl implements ReloadService {
     public void resume(Configuration configuration) {
         Resource resource = suspendedTasks.remove(configuration);
         if (resource != null) {
-            suspendedTasks.remove(configuration);
-            startTimerTask(configuration, resource);
+            startReloadTask(configuration, resource);
 
             log.debug("Resumed reload of configuration [{}]", configuration.getName());
         }
     }
 
     public void shutdown() {
-        configurationReloadTimer.cancel();
+        for (ConfigurationReloadTask each : reloadTasks.values()) {
+            each.cancel();
+        }
+        reloadTasks.clear();
+
+        if (ownExecutor) {
+            executor.shutdownNow();
+        }
+        synchronized (this) {
+            if (fileWatcher != null) {
+                fileWatcher.close();
+            }
+        }
         log.debug("Shutdown Reload Service...");
     }
 
-    private void startTimerTask(Configuration configuration, Resource resource) {
-        final TimerTask task = new ConfigurationReloadTimerTask(configuration, resource, configurationLoader);
-        reloadTasks.put(configuration, task);
+    /**
+     * Gets the count of reloads run by this service.
+     *
+     * @return the count of reloads.
+     */
+    public long getReloadCount() {
+        return reloadCount.get();
+    }
+
+    /**
+     * Gets the count of changes that were reloaded together with other changes,
+     * because they were found while reload was delayed.
+     *
+     * @return the count of coalesced changes.
+     */
+    public long getCoalescedChangeCount() {
+        return coalescedCount.get();
+    }
+
+    private void startReloadTask(Configuration configuration, Resource resource) {
+        final ConfigurationReloadTask task = new ConfigurationReloadTask(configuration, resource);
+        final ReloadPolicy reloadPolicy = configuration.getReloadPolicy();
+
+        if (reloadPolicy.isWatch() && resource instanceof FileResource && startWatch(task)) {
+            replaceReloadTask(task);
+            return;
+        }
+
+        final long reloadMillis = reloadPolicy.getCheckEvery() * ONE_SECOND;
+        if (reloadMillis <= 0) {
+            log.warn("Configuration [{}] can't be watched and has no check period, so it's not reloaded.",
+                    configuration.getName());
+            return;
+        }
+
+        final long initialDelay = reloadMillis / 2 + ThreadLocalRandom.current().nextLong(reloadMillis);
+        task.future = executor.scheduleWithFixedDelay(task, initialDelay, reloadMillis, TimeUnit.MILLISECONDS);
+        replaceReloadTask(task);
+    }
+
+    private void replaceReloadTask(ConfigurationReloadTask task) {
+        final ConfigurationReloadTask previous = reloadTasks.put(task.getConfiguration(), task);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
 
-        final long reloadMillis = configuration.getReloadPolicy().getCheckEvery() * ONE_SECOND;
-        configurationReloadTimer.schedule(task, reloadMillis, reloadMillis);
+    private synchronized FileWatcher getFileWatcher() throws IOException {
+        if (fileWatcher == null) {
+            fileWatcher = new FileWatcher();
+        }
+        return fileWatcher;
     }
 
+    private boolean startWatch(ConfigurationReloadTask task) {
+        try {
+            task.startWatch(getFileWatcher());
+            return true;
+        }
+        catch (IOException e) {
+            log.warn("Can't watch file of configuration [" + task.getConfiguration().getName()
+                    + "], it's checked periodically.", e);
+            return false;
+        }
+    }
+
+    // ------------------------------------------------------------
 
     /**
-     * Responsible for reloading configuration if related resource was changed.
+     * Responsible for reloading configuration if related resource
+     * or resource of included configuration was changed.
      */
-    private static class ConfigurationReloadTimerTask extends TimerTask {
+    private class ConfigurationReloadTask implements Runnable {
 
         private final Configuration configuration;
         private final Resource resource;
-        private ConfigurationLoader configurationLoader;
+        private final ReloadPolicy reloadPolicy;
+
+        private volatile boolean cancelled;
+        private ScheduledFuture<?> future;
+
+        // guarded by this
+        private long firstChange;
+        private long changeStamp;
+        private ScheduledFuture<?> delayedReload;
+
+        private final Object reloadLock = new Object();
+
+        // modification times of files of the loaded configuration
+        private final Map<File, Long> fileStamps = new ConcurrentHashMap<File, Long>();
+
+        private volatile boolean watching;
+        private volatile FileWatcher fileWatcher;
+        private final Map<File, FileWatcher.Watch> watches = new HashMap<File, FileWatcher.Watch>();
+
+        // reload is run by executor, so watcher thread is free to process other changes
+        private final Runnable watchAction = new Runnable() {
+            public void run() {
+                executor.execute(ConfigurationReloadTask.this);
+            }
+        };
 
-        private ConfigurationReloadTimerTask(Configuration configuration, Resource resource,
-                                             ConfigurationLoader configurationLoader) {
+        private final Runnable reloadAction = new Runnable() {
+            public void run() {
+                synchronized (ConfigurationReloadTask.this) {
+                    firstChange = 0;
+                    delayedReload = null;
+                }
+                reloadSafely();
+            }
+        };
+
+        private ConfigurationReloadTask(Configuration configuration, Resource resource) {
             this.resource = resource;
             this.configuration = configuration;
-            this.configurationLoader = configurationLoader;
+            this.reloadPolicy = configuration.getReloadPolicy();
+            rememberFiles(Collections.<File, Long>emptyMap());
         }
 
         public Configuration getConfiguration() {
@@ -140,15 +338,250 @@ public class ReloadServiceImpl implements ReloadService {
             return resource;
         }
 
+        public void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+            synchronized (this) {
+                if (delayedReload != null) {
+                    delayedReload.cancel(false);
+                    delayedReload = null;
+                }
+            }
+            cancelWatches();
+        }
+
         public void run() {
-            if (!resource.isChanged()) return;
+            // Throwable is caught, as periodic task is not run anymore after it fails
+            try {
+                if (!cancelled && isChanged()) {
+                    changed();
+                }
+            }
+            catch (Throwable e) {
+                log.error("Error to reload configuration [" + configuration + "]", e);
+            }
+        }
+
+        /**
+         * Schedules reload after the quiet period. If reload is already scheduled for other change,
+         * than it's rescheduled, but not later than maximum delay after the first change.
+         * If reload is already scheduled for the same change, i.e. it's found again by periodic check,
+         * than reload is left as is.
+         */
+        private void changed() {
+            final long quietPeriod = reloadPolicy.getQuietPeriod();
+            if (quietPeriod <= 0) {
+                reloadSafely();
+                return;
+            }
+
+            final long now = System.currentTimeMillis();
+            final long stamp = getChangeStamp();
+            synchronized (this) {
+                if (cancelled) return;
+
+                if (delayedReload != null) {
+                    if (stamp == changeStamp) {
+                        return;
+                    }
+                    delayedReload.cancel(false);
+                    coalescedCount.incrementAndGet();
+                }
+                changeStamp = stamp;
+                if (firstChange == 0) {
+                    firstChange = now;
+                }
+
+                long delay = quietPeriod;
+                final long maxDelay = reloadPolicy.getMaxDelay();
+                if (maxDelay > 0) {
+                    delay = Math.max(0, Math.min(delay, firstChange + maxDelay - now));
+                }
+                delayedReload = executor.schedule(reloadAction, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void reloadSafely() {
             try {
+                reload();
+            }
+            catch (Throwable e) {
+                log.error("Error to reload configuration [" + configuration + "]", e);
+            }
+        }
+
+        private void reload() throws Exception {
+            // reloads are serialized with their own lock, so changes can be scheduled while reloading
+            synchronized (reloadLock) {
+                if (cancelled || !isChanged()) return;
+
+                // times are got before files are read, so change made while reloading is found later
+                final Map<File, Long> stamps = getFileStamps();
                 configurationLoader.reload((ReloadableConfiguration) configuration, resource);
+                rememberFiles(stamps);
+                reloadCount.incrementAndGet();
                 log.debug("Reloaded configuration [{}]", configuration);
             }
-            catch (Exception e) {
-                log.error("Error to reload configuration [" + configuration + "]", e);
+
+            if (watching) {
+                try {
+                    updateWatches();
+                }
+                catch (IOException e) {
+                    log.warn("Can't watch files included by configuration [" + configuration + "]", e);
+                }
+            }
+        }
+
+        /**
+         * Gets the stamp of the current state of configuration files; it's changed when
+         * any file is modified. Resources that are not files don't change the stamp.
+         *
+         * @return the stamp of configuration files.
+         */
+        private long getChangeStamp() {
+            long result = getChangeStamp(resource);
+            for (Resource each : configurationLoader.getResources((ReloadableConfiguration) configuration)) {
+                result = 31 * result + getChangeStamp(each);
+            }
+            return result;
+        }
+
+        private long getChangeStamp(Resource resource) {
+            return (resource instanceof FileResource ? ((FileResource) resource).getFile().lastModified() : 0);
+        }
+
+        private boolean isChanged() {
+            if (isChanged(resource)) {
+                return true;
+            }
+            for (Resource each : configurationLoader.getResources((ReloadableConfiguration) configuration)) {
+                if (isChanged(each)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isChanged(Resource resource) {
+            if (resource instanceof FileResource) {
+                final File file = ((FileResource) resource).getFile().getAbsoluteFile();
+                final Long stamp = fileStamps.get(file);
+                return stamp == null || stamp < file.lastModified();
+            }
+            return resource.isChanged();
+        }
+
+        private Map<File, Long> getFileStamps() {
+            final Map<File, Long> result = new HashMap<File, Long>();
+            for (FileResource each : getFileResources()) {
+                final File file = each.getFile().getAbsoluteFile();
+                result.put(file, file.lastModified());
+            }
+            return result;
+        }
+
+        /**
+         * Remembers modification times of the files of loaded configuration.
+         * Time of file that is not in passed times is the time when it was read.
+         *
+         * @param stamps the modification times of files got before they were read.
+         */
+        private void rememberFiles(Map<File, Long> stamps) {
+            final Map<File, Long> result = new HashMap<File, Long>();
+            for (FileResource each : getFileResources()) {
+                final File file = each.getFile().getAbsoluteFile();
+                final Long stamp = stamps.get(file);
+                final long readTimestamp = each.getReadTimestamp();
+                result.put(file, (stamp != null ? stamp : (readTimestamp != 0 ? readTimestamp : file.lastModified())));
+            }
+            fileStamps.keySet().retainAll(result.keySet());
+            fileStamps.putAll(result);
+        }
+
+        private List<FileResource> getFileResources() {
+            final List<FileResource> result = new ArrayList<FileResource>();
+            if (resource instanceof FileResource) {
+                result.add((FileResource) resource);
+            }
+            for (Resource each : configurationLoader.getResources((ReloadableConfiguration) configuration)) {
+                if (each instanceof FileResource) {
+                    result.add((FileResource) each);
+                }
+            }
+            return result;
+        }
+
+        private void startWatch(FileWatcher fileWatcher) throws IOException {
+            this.fileWatcher = fileWatcher;
+            watching = true;
+            try {
+                updateWatches();
+            }
+            catch (IOException e) {
+                watching = false;
+                cancelWatches();
+                throw e;
+            }
+        }
+
+        /**
+         * Watches files of configuration and included configurations,
+         * and stops watching files that are not included anymore.
+         *
+         * @throws IOException error to watch the file.
+         */
+        private void updateWatches() throws IOException {
+            final Set<File> files = new HashSet<File>();
+            files.add(((FileResource) resource).getFile().getAbsoluteFile());
+            for (Resource each : configurationLoader.getResources((ReloadableConfiguration) configuration)) {
+                if (each instanceof FileResource) {
+                    files.add(((FileResource) each).getFile().getAbsoluteFile());
+                }
             }
+
+            synchronized (watches) {
+                if (cancelled) return;
+
+                final Iterator<Map.Entry<File, FileWatcher.Watch>> iterator = watches.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    final Map.Entry<File, FileWatcher.Watch> entry = iterator.next();
+                    if (!files.contains(entry.getKey())) {
+                        entry.getValue().cancel();
+                        iterator.remove();
+                    }
+                }
+                for (File each : files) {
+                    if (!watches.containsKey(each)) {
+                        watches.put(each, fileWatcher.watch(each, watchAction));
+                    }
+                }
+            }
+        }
+
+        private void cancelWatches() {
+            synchronized (watches) {
+                for (FileWatcher.Watch each : watches.values()) {
+                    each.cancel();
+                }
+                watches.clear();
+            }
+        }
+    }
+
+    /**
+     * Creates daemon reload threads.
+     */
+    private static class ReloadThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "Configuration Reload " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
         }
     }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.service;
+
+import com.prutsoft.config.Configuration;
+import com.prutsoft.config.parser.ConfigurationBuilder;
+import com.prutsoft.config.resource.Resource;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The node of the configuration resources graph. Node contains the resource,
+ * fingerprint of its content, configuration built from it and nodes of included resources.
+ * <p>
+ * Node is not changed after creation. When resource or any included resource is changed,
+ * the new node is created, while nodes of not changed resources are reused.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-11
+ */
+final class ResourceNode {
+
+    private final String path;
+    private final Resource resource;
+    private final long fingerprint;
+    private final ConfigurationBuilder builder;
+    private final List<ResourceNode> children;
+    private final Configuration configuration;
+
+    ResourceNode(String path, Resource resource, long fingerprint, ConfigurationBuilder builder,
+                 List<ResourceNode> children, Configuration configuration) {
+        this.path = path;
+        this.resource = resource;
+        this.fingerprint = fingerprint;
+        this.builder = builder;
+        this.children = Collections.unmodifiableList(children);
+        this.configuration = configuration;
+    }
+
+    /**
+     * Gets the path the resource was loaded by.
+     *
+     * @return the resource path.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public Resource getResource() {
+        return resource;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Gets the builder with parsed resource content.
+     * It's used to build configuration again when included configurations are changed.
+     *
+     * @return the configuration builder.
+     */
+    public ConfigurationBuilder getBuilder() {
+        return builder;
+    }
+
+    /**
+     * Gets the nodes of included resources, in order of including.
+     *
+     * @return the nodes of included resources.
+     */
+    public List<ResourceNode> getChildren() {
+        return children;
+    }
+
+    /**
+     * Gets the configuration built from resource and included configurations.
+     *
+     * @return the configuration.
+     */
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Gets the nodes of included resources by their paths.
+     *
+     * @return the map of path to node.
+     */
+    public Map<String, ResourceNode> getChildrenByPath() {
+        final Map<String, ResourceNode> result = new HashMap<String, ResourceNode>();
+        for (ResourceNode each : children) {
+            result.put(each.path, each);
+        }
+        return result;
+    }
+
+    /**
+     * Adds resources of this node and all included nodes to the collection.
+     *
+     * @param result the collection to add resources to.
+     */
+    public void collectResources(Collection<Resource> result) {
+        result.add(resource);
+        for (ResourceNode each : children) {
+            each.collectResources(result);
+        }
+    }
+}
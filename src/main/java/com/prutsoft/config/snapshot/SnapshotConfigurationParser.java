@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.snapshot;
+
+import com.prutsoft.config.NamedElement;
+import com.prutsoft.config.NamedElementsContainer;
+import com.prutsoft.config.Version;
+import com.prutsoft.config.element.cache.CachePolicy;
+import com.prutsoft.config.element.control.Condition;
+import com.prutsoft.config.element.control.ElseCondition;
+import com.prutsoft.config.element.control.SwitchElement;
+import com.prutsoft.config.element.expression.ExpressionElement;
+import com.prutsoft.config.element.expression.ExpressionFactory;
+import com.prutsoft.config.element.metadata.MetadataProperty;
+import com.prutsoft.config.element.pojo.PojoElement;
+import com.prutsoft.config.element.pojo.PojoInstancePolicy;
+import com.prutsoft.config.element.property.Property;
+import com.prutsoft.config.element.reload.ReloadPolicy;
+import com.prutsoft.config.element.set.PropertySet;
+import com.prutsoft.config.element.value.ReadOnlyValue;
+import com.prutsoft.config.element.value.RegularValue;
+import com.prutsoft.config.element.value.Value;
+import com.prutsoft.config.element.value.ValueType;
+import com.prutsoft.config.element.value.ValueTypeRegistry;
+import com.prutsoft.config.exception.ConfigurationException;
+import com.prutsoft.config.exception.ParseException;
+import com.prutsoft.config.parser.ConfigurationBuilder;
+import com.prutsoft.config.parser.ConfigurationParser;
+import com.prutsoft.config.resource.ByteBufferInputStream;
+import com.prutsoft.config.resource.ByteBufferResource;
+import com.prutsoft.config.resource.Resource;
+import com.prutsoft.core.annotation.NotNull;
+import com.prutsoft.core.asserts.ArgumentAssert;
+import com.prutsoft.core.code.Warnings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The parser of configuration snapshots written by {@link SnapshotWriter}.
+ * <p>
+ * Elements are created directly from the snapshot, without XML parsing.
+ * Included configurations are read from the snapshot too, so returned builder
+ * has included configurations instead of their paths.
+ * <p>
+ * If resource is {@link ByteBufferResource}, e.g. snapshot file, it's read from the buffer,
+ * so memory-mapped file is not copied to the heap.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-11
+ * @see SnapshotFormat
+ */
+public class SnapshotConfigurationParser implements ConfigurationParser {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotConfigurationParser.class);
+
+    public ConfigurationBuilder parse(@NotNull Resource resource) throws ParseException {
+        ArgumentAssert.isNotNull(resource, "Resource can't be null.");
+        ArgumentAssert.isTrue(resource.exists(), "Resource must exist.");
+
+        try {
+            // mapped file is read directly, without copying it through the stream buffers
+            final InputStream stream = (resource instanceof ByteBufferResource
+                    ? new ByteBufferInputStream(((ByteBufferResource) resource).getByteBuffer())
+                    : new BufferedInputStream(resource.getInputStream()));
+            try {
+                return read(new DataInputStream(stream));
+            }
+            finally {
+                stream.close();
+            }
+        }
+        catch (Exception e) {
+            String msg = "Error to parse configuration snapshot " + resource.getName();
+            log.error(msg + ", cause:", e);
+            throw new ParseException(msg, e);
+        }
+    }
+
+    /**
+     * Reads the snapshot.
+     *
+     * @param in the input to read snapshot from.
+     * @return the builder of the read configuration.
+     * @throws IOException            error to read snapshot.
+     * @throws ConfigurationException wrong snapshot format or version.
+     */
+    public ConfigurationBuilder read(DataInput in) throws IOException, ConfigurationException {
+        if (in.readInt() != SnapshotFormat.MAGIC) {
+            throw new SnapshotException("Not a configuration snapshot.");
+        }
+
+        final short version = in.readShort();
+        if (version != SnapshotFormat.VERSION) {
+            throw new SnapshotException("Unsupported snapshot format version " + version
+                    + ", expected " + SnapshotFormat.VERSION);
+        }
+        return readConfiguration(in);
+    }
+
+    private ConfigurationBuilder readConfiguration(DataInput in) throws IOException, ConfigurationException {
+        final ConfigurationBuilder builder = new ConfigurationBuilder();
+        builder.setName(SnapshotFormat.readString(in));
+
+        final String major = SnapshotFormat.readString(in);
+        final String minor = SnapshotFormat.readString(in);
+        builder.setVersion(new Version(SnapshotFormat.readString(in), major, minor));
+
+        if (in.readBoolean()) {
+            final ReloadPolicy reloadPolicy = new ReloadPolicy();
+            reloadPolicy.setOnChange(in.readBoolean());
+            reloadPolicy.setCheckEvery(in.readInt());
+            reloadPolicy.setWatch(in.readBoolean());
+            reloadPolicy.setQuietPeriod(in.readLong());
+            reloadPolicy.setMaxDelay(in.readLong());
+            builder.setReloadPolicy(reloadPolicy);
+        }
+
+        final int metadataCount = in.readInt();
+        for (int i = 0; i < metadataCount; i++) {
+            final String name = SnapshotFormat.readString(in);
+            builder.addMetadataProperty(new MetadataProperty(name, SnapshotFormat.readString(in)));
+        }
+
+        final int includedCount = in.readInt();
+        for (int i = 0; i < includedCount; i++) {
+            builder.addConfiguration(readConfiguration(in).toConfiguration());
+        }
+
+        final int elementsCount = in.readInt();
+        for (int i = 0; i < elementsCount; i++) {
+            final NamedElement element = readElement(in);
+            if (element instanceof Property) {
+                builder.addProperty((Property) element);
+            }
+            else if (element instanceof ExpressionElement) {
+                builder.addExpression((ExpressionElement) element);
+            }
+            else if (element instanceof SwitchElement) {
+                builder.addSwitch((SwitchElement) element);
+            }
+            else if (element instanceof PropertySet) {
+                builder.addSet((PropertySet) element);
+            }
+            else {
+                builder.addPojo((PojoElement) element);
+            }
+        }
+        return builder;
+    }
+
+    private void readElements(DataInput in, NamedElementsContainer container)
+            throws IOException, ConfigurationException {
+        final int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            container.addElement(readElement(in));
+        }
+    }
+
+    private NamedElement readElement(DataInput in) throws IOException, ConfigurationException {
+        final byte tag = in.readByte();
+        final String name = SnapshotFormat.readString(in);
+
+        switch (tag) {
+            case SnapshotFormat.PROPERTY: {
+                final Property property = new Property(name);
+                property.setDescription(SnapshotFormat.readString(in));
+                property.setValue(readValue(in));
+                return property;
+            }
+            case SnapshotFormat.EXPRESSION: {
+                final ExpressionElement expression = new ExpressionElement(name);
+                expression.setDescription(SnapshotFormat.readString(in));
+                expression.setExpression(ExpressionFactory.createExpression(SnapshotFormat.readString(in)));
+                expression.setCachePolicy(readCachePolicy(in));
+                return expression;
+            }
+            case SnapshotFormat.SWITCH: {
+                final SwitchElement switchElement = new SwitchElement(name);
+                switchElement.setCachePolicy(readCachePolicy(in));
+                final int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    switchElement.addCondition(readCondition(in));
+                }
+                return switchElement;
+            }
+            case SnapshotFormat.SET: {
+                final PropertySet set = new PropertySet(name);
+                set.setDescription(SnapshotFormat.readString(in));
+                readElements(in, set);
+                return set;
+            }
+            case SnapshotFormat.POJO: {
+                final String className = SnapshotFormat.readString(in);
+                final PojoElement pojo;
+                try {
+                    pojo = new PojoElement(name, Class.forName(className));
+                }
+                catch (ClassNotFoundException e) {
+                    throw new SnapshotException("Error to read POJO element " + name + ", cause:", e);
+                }
+                pojo.setDescription(SnapshotFormat.readString(in));
+                pojo.setInstancePolicy(PojoInstancePolicy.forName(SnapshotFormat.readString(in)));
+                readElements(in, pojo);
+                return pojo;
+            }
+            default:
+                throw new SnapshotException("Unknown element tag " + tag + " of element " + name);
+        }
+    }
+
+    private Condition<Value> readCondition(DataInput in) throws IOException, ConfigurationException {
+        final byte kind = in.readByte();
+        if (kind == SnapshotFormat.ELSE_CONDITION) {
+            return new ElseCondition<Value>(readValue(in));
+        }
+
+        final String expression = SnapshotFormat.readString(in);
+        return new Condition<Value>(ExpressionFactory.createLogicalExpression(expression), readValue(in));
+    }
+
+    @SuppressWarnings(Warnings.Unchecked)
+    private Value readValue(DataInput in) throws IOException, ConfigurationException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        final String typeName = SnapshotFormat.readString(in);
+        final ValueType type = ValueTypeRegistry.getInstance().getValueType(typeName);
+        if (type == null) {
+            throw new SnapshotException("Unknown value type " + typeName);
+        }
+
+        final boolean readOnly = in.readBoolean();
+        final String value = SnapshotFormat.readString(in);
+        return (readOnly ? ReadOnlyValue.create(value, type) : RegularValue.create(value, type));
+    }
+
+    private CachePolicy readCachePolicy(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        final int maxSize = in.readInt();
+        return new CachePolicy(maxSize, in.readInt());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * The constants and primitives of the configuration snapshot format.
+ * <p>
+ * Snapshot starts with {@link #MAGIC} and {@link #VERSION} of the format, followed by the configuration:
+ * <pre>
+ * configuration := name version reload-policy metadata includes elements
+ * version       := major minor name
+ * reload-policy := boolean [boolean(on-change) int(check-every) boolean(watch)
+ *                  long(quiet-period) long(max-delay)]
+ * metadata      := int(count) { name string }
+ * includes      := int(count) { configuration }
+ * elements      := int(count) { element }
+ * element       := byte(tag) name ...
+ * </pre>
+ * Strings are written as the length of UTF-8 bytes followed by bytes, {@code -1} length is for {@code null}.
+ * Reader of the format version reads only snapshots of the same version.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-11
+ */
+final class SnapshotFormat {
+
+    /**
+     * The first bytes of snapshot: <code>CFGS</code>.
+     */
+    public static final int MAGIC = 0x43464753;
+
+    /**
+     * The version of the format, it's changed each time format is changed.
+     */
+    public static final short VERSION = 2;
+
+    public static final byte PROPERTY = 1;
+    public static final byte EXPRESSION = 2;
+    public static final byte SWITCH = 3;
+    public static final byte SET = 4;
+    public static final byte POJO = 5;
+
+    public static final byte CONDITION = 1;
+    public static final byte ELSE_CONDITION = 2;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        final int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private SnapshotFormat() {
+    }
+}
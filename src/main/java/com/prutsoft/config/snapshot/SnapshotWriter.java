@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.snapshot;
+
+import com.prutsoft.config.Configuration;
+import com.prutsoft.config.NamedElement;
+import com.prutsoft.config.NamedElementsContainer;
+import com.prutsoft.config.Version;
+import com.prutsoft.config.element.cache.CachePolicy;
+import com.prutsoft.config.element.control.Condition;
+import com.prutsoft.config.element.control.ElseCondition;
+import com.prutsoft.config.element.control.SwitchElement;
+import com.prutsoft.config.element.expression.Expression;
+import com.prutsoft.config.element.expression.ExpressionElement;
+import com.prutsoft.config.element.expression.SourceAwareExpression;
+import com.prutsoft.config.element.metadata.Metadata;
+import com.prutsoft.config.element.metadata.MetadataProperty;
+import com.prutsoft.config.element.pojo.PojoElement;
+import com.prutsoft.config.element.property.Property;
+import com.prutsoft.config.element.reload.ReloadPolicy;
+import com.prutsoft.config.element.set.PropertySet;
+import com.prutsoft.config.element.value.ReadOnlyValue;
+import com.prutsoft.config.element.value.RegularValue;
+import com.prutsoft.config.element.value.Value;
+import com.prutsoft.config.element.value.ValueTypeRegistry;
+import com.prutsoft.config.exception.ValueFormatException;
+import com.prutsoft.core.annotation.NotNull;
+import com.prutsoft.core.asserts.ArgumentAssert;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes the built configuration to the snapshot, so it can be loaded later without parsing XML.
+ * Snapshot is read by {@link SnapshotConfigurationParser}.
+ * <p>
+ * Included configurations are written into the snapshot of the configuration that includes them.
+ * Elements are written ordered by name, so the same configuration is always written to the same bytes.
+ * Values are written as strings of their registered value types, and expressions as their source text,
+ * so snapshot doesn't depend on Java serialization of the classes.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-11
+ * @see SnapshotFormat
+ */
+public class SnapshotWriter {
+
+    private static final Comparator<NamedElement> BY_NAME = new Comparator<NamedElement>() {
+        public int compare(NamedElement first, NamedElement second) {
+            return first.getName().compareTo(second.getName());
+        }
+    };
+
+    /**
+     * Writes the snapshot of configuration to the file.
+     * <p>
+     * Snapshot is written to the temporary file in the same directory, which is then renamed
+     * over the target file. So the file is never seen half-written, and readers that opened
+     * or mapped the previous snapshot keep reading it whole.
+     *
+     * @param configuration the configuration to write; can't be null.
+     * @param file          the file to write to; can't be null.
+     * @throws SnapshotException error to write snapshot.
+     */
+    public void write(@NotNull Configuration configuration, @NotNull File file) throws SnapshotException {
+        ArgumentAssert.isNotNull(file, "File can't be null.");
+
+        File temp = null;
+        try {
+            final File target = file.getAbsoluteFile();
+            temp = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+            final FileOutputStream out = new FileOutputStream(temp);
+            try {
+                write(configuration, out);
+                out.getFD().sync();
+            }
+            finally {
+                out.close();
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            temp = null;
+        }
+        catch (IOException e) {
+            throw new SnapshotException("Error to write snapshot to file " + file, e);
+        }
+        finally {
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshot of configuration to the stream. Stream is not closed.
+     *
+     * @param configuration the configuration to write; can't be null.
+     * @param stream        the stream to write to; can't be null.
+     * @throws SnapshotException error to write snapshot.
+     */
+    public void write(@NotNull Configuration configuration, @NotNull OutputStream stream) throws SnapshotException {
+        ArgumentAssert.isNotNull(configuration, "Configuration can't be null.");
+        ArgumentAssert.isNotNull(stream, "Stream can't be null.");
+
+        try {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(SnapshotFormat.MAGIC);
+            out.writeShort(SnapshotFormat.VERSION);
+            writeConfiguration(out, configuration);
+            out.flush();
+        }
+        catch (IOException e) {
+            throw new SnapshotException("Error to write snapshot of configuration " + configuration, e);
+        }
+    }
+
+    private void writeConfiguration(DataOutput out, Configuration configuration) throws IOException, SnapshotException {
+        SnapshotFormat.writeString(out, configuration.getName());
+
+        final Version version = configuration.getVersion();
+        SnapshotFormat.writeString(out, version.getMajor());
+        SnapshotFormat.writeString(out, version.getMinor());
+        SnapshotFormat.writeString(out, version.getName());
+
+        final ReloadPolicy reloadPolicy = configuration.getReloadPolicy();
+        out.writeBoolean(reloadPolicy != null);
+        if (reloadPolicy != null) {
+            out.writeBoolean(reloadPolicy.isOnChange());
+            out.writeInt(reloadPolicy.getCheckEvery());
+            out.writeBoolean(reloadPolicy.isWatch());
+            out.writeLong(reloadPolicy.getQuietPeriod());
+            out.writeLong(reloadPolicy.getMaxDelay());
+        }
+
+        final Metadata metadata = configuration.getMetadata();
+        final Collection<MetadataProperty> metadataProperties = (metadata != null
+                ? metadata.getProperties()
+                : Collections.<MetadataProperty>emptyList());
+        out.writeInt(metadataProperties.size());
+        for (MetadataProperty each : metadataProperties) {
+            SnapshotFormat.writeString(out, each.getName());
+            SnapshotFormat.writeString(out, each.getValue());
+        }
+
+        final Collection<Configuration> included = configuration.getIncludedConfigurations();
+        out.writeInt(included.size());
+        for (Configuration each : included) {
+            writeConfiguration(out, each);
+        }
+
+        writeElements(out, configuration);
+    }
+
+    private void writeElements(DataOutput out, NamedElementsContainer container)
+            throws IOException, SnapshotException {
+        final List<NamedElement> elements = new ArrayList<NamedElement>(container.getElements());
+        Collections.sort(elements, BY_NAME);
+
+        out.writeInt(elements.size());
+        for (NamedElement each : elements) {
+            writeElement(out, each);
+        }
+    }
+
+    private void writeElement(DataOutput out, NamedElement element) throws IOException, SnapshotException {
+        if (element instanceof Property) {
+            final Property property = (Property) element;
+            out.writeByte(SnapshotFormat.PROPERTY);
+            SnapshotFormat.writeString(out, property.getName());
+            SnapshotFormat.writeString(out, property.getDescription());
+            writeValue(out, property.getValue());
+        }
+        else if (element instanceof ExpressionElement) {
+            final ExpressionElement expression = (ExpressionElement) element;
+            out.writeByte(SnapshotFormat.EXPRESSION);
+            SnapshotFormat.writeString(out, expression.getName());
+            SnapshotFormat.writeString(out, expression.getDescription());
+            SnapshotFormat.writeString(out, getSource(expression.getExpression()));
+            writeCachePolicy(out, expression.getCachePolicy());
+        }
+        else if (element instanceof SwitchElement) {
+            final SwitchElement switchElement = (SwitchElement) element;
+            out.writeByte(SnapshotFormat.SWITCH);
+            SnapshotFormat.writeString(out, switchElement.getName());
+            writeCachePolicy(out, switchElement.getCachePolicy());
+
+            final List<Condition<Value>> conditions = switchElement.getConditions();
+            out.writeInt(conditions.size());
+            for (Condition<Value> each : conditions) {
+                if (each instanceof ElseCondition) {
+                    out.writeByte(SnapshotFormat.ELSE_CONDITION);
+                }
+                else {
+                    out.writeByte(SnapshotFormat.CONDITION);
+                    SnapshotFormat.writeString(out, getSource(each.getExpression()));
+                }
+                writeValue(out, each.getValue());
+            }
+        }
+        else if (element instanceof PropertySet) {
+            final PropertySet set = (PropertySet) element;
+            out.writeByte(SnapshotFormat.SET);
+            SnapshotFormat.writeString(out, set.getName());
+            SnapshotFormat.writeString(out, set.getDescription());
+            writeElements(out, set);
+        }
+        else if (element instanceof PojoElement) {
+            final PojoElement pojo = (PojoElement) element;
+            out.writeByte(SnapshotFormat.POJO);
+            SnapshotFormat.writeString(out, pojo.getName());
+            SnapshotFormat.writeString(out, pojo.getPojoClass().getName());
+            SnapshotFormat.writeString(out, pojo.getDescription());
+            SnapshotFormat.writeString(out, pojo.getInstancePolicy().getName());
+            writeElements(out, pojo);
+        }
+        else {
+            throw new SnapshotException("Element [" + element.getName() + "] of type "
+                    + element.getClass().getName() + " can't be written to snapshot.");
+        }
+    }
+
+    private void writeValue(DataOutput out, Value value) throws IOException, SnapshotException {
+        out.writeBoolean(value != null);
+        if (value == null) return;
+
+        if (!(value instanceof RegularValue)) {
+            throw new SnapshotException("Value of type " + value.getClass().getName() + " can't be written to snapshot.");
+        }
+
+        final RegularValue regularValue = (RegularValue) value;
+        final String typeName = ValueTypeRegistry.getInstance().getValueTypeName(regularValue.getType());
+        if (typeName == null) {
+            throw new SnapshotException("Value type " + regularValue.getType() + " is not registered.");
+        }
+
+        try {
+            SnapshotFormat.writeString(out, typeName);
+            out.writeBoolean(value instanceof ReadOnlyValue);
+            SnapshotFormat.writeString(out, regularValue.getStringValue());
+        }
+        catch (ValueFormatException e) {
+            throw new SnapshotException("Error to write value " + value, e);
+        }
+    }
+
+    private void writeCachePolicy(DataOutput out, CachePolicy policy) throws IOException {
+        out.writeBoolean(policy != null);
+        if (policy != null) {
+            out.writeInt(policy.getMaxSize());
+            out.writeInt(policy.getTimeToLive());
+        }
+    }
+
+    private String getSource(Expression expression) throws SnapshotException {
+        if (!(expression instanceof SourceAwareExpression)) {
+            throw new SnapshotException("Expression of type " + expression.getClass().getName()
+                    + " can't be written to snapshot.");
+        }
+        return ((SourceAwareExpression) expression).getSource();
+    }
+}
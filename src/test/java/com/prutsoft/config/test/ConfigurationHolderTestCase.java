@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.test;
+
+import com.prutsoft.config.Configuration;
+import com.prutsoft.config.ConfigurationImpl;
+import com.prutsoft.config.Version;
+import com.prutsoft.config.VersionRange;
+import com.prutsoft.config.resource.ClasspathResource;
+import com.prutsoft.config.resource.Resource;
+import com.prutsoft.config.service.ConfigurationHolder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The test cases for configuration holder.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-13
+ */
+public class ConfigurationHolderTestCase {
+
+    private final Resource resource = new ClasspathResource("config.xml");
+
+    @Test
+    public void testFindByVersion() {
+        ConfigurationHolder holder = new ConfigurationHolder();
+        Configuration first = new ConfigurationImpl("config", Version.parse("1.0.0"));
+        Configuration second = new ConfigurationImpl("config", Version.parse("1.1.0"));
+        holder.addConfiguration(first, resource);
+        holder.addConfiguration(second, resource);
+
+        Assert.assertSame(second, holder.getConfiguration("config"));
+        Assert.assertSame(first, holder.getConfiguration("config", "1.0.0"));
+        Assert.assertSame(second, holder.getConfiguration("config", new Version("0", "1", "1")));
+        Assert.assertNull(holder.getConfiguration("config", "2.0.0"));
+        Assert.assertNull(holder.getConfiguration("other"));
+
+        holder.removeConfiguration(second);
+        Assert.assertSame(first, holder.getConfiguration("config"));
+        Assert.assertSame(first, holder.getConfiguration("config", (Version) null));
+        Assert.assertNull(holder.getConfiguration("config", "1.1.0"));
+    }
+
+    @Test
+    public void testVersionOrder() {
+        Assert.assertTrue(Version.parse("1.10.0").compareTo(Version.parse("1.9.0")) > 0);
+        Assert.assertTrue(Version.parse("2.0.0").compareTo(Version.parse("1.99.99")) > 0);
+        Assert.assertTrue(Version.parse("1.0.10").compareTo(Version.parse("1.0.beta")) < 0);
+        Assert.assertEquals(0, Version.parse("1.2.3").compareTo(new Version("3", "1", "2")));
+        Assert.assertEquals(Version.parse("1.2.3").hashCode(), new Version("3", "1", "2").hashCode());
+    }
+
+    @Test
+    public void testFindByRange() {
+        ConfigurationHolder holder = new ConfigurationHolder();
+        for (String each : new String[] {"2.1.0", "1.0.0", "1.10.0", "1.2.0", "1.9.5", "3.0.0"}) {
+            holder.addConfiguration(new ConfigurationImpl("config", Version.parse(each)), resource);
+        }
+
+        Assert.assertEquals(Version.parse("3.0.0"), holder.getConfiguration("config").getVersion());
+        Assert.assertEquals(Version.parse("1.10.0"),
+                holder.getConfiguration("config", VersionRange.major(1)).getVersion());
+        Assert.assertEquals(Version.parse("2.1.0"),
+                holder.getConfiguration("config", VersionRange.parse("<3.0.0")).getVersion());
+        Assert.assertNull(holder.getConfiguration("config", VersionRange.major(4)));
+        Assert.assertNull(holder.getConfiguration("config", VersionRange.parse(">2.0.0 <1.0.0")));
+
+        List<Configuration> found = holder.getConfigurations("config", VersionRange.parse(">=1.2.0 <2.0.0"));
+        Assert.assertEquals(3, found.size());
+        Assert.assertEquals(Version.parse("1.2.0"), found.get(0).getVersion());
+        Assert.assertEquals(Version.parse("1.9.5"), found.get(1).getVersion());
+        Assert.assertEquals(Version.parse("1.10.0"), found.get(2).getVersion());
+
+        found = holder.getConfigurations("config", VersionRange.parse("1.9.5"));
+        Assert.assertEquals(1, found.size());
+        Assert.assertTrue(holder.getConfigurations("other", VersionRange.major(1)).isEmpty());
+    }
+
+    @Test
+    public void testConfigurationsSnapshot() {
+        ConfigurationHolder holder = new ConfigurationHolder();
+        holder.addConfiguration(new ConfigurationImpl("config", Version.parse("1.0.0")), resource);
+
+        Collection<Configuration> configurations = holder.getConfigurations();
+        holder.addConfiguration(new ConfigurationImpl("other", Version.parse("1.0.0")), resource);
+
+        Assert.assertEquals(1, configurations.size());
+        Assert.assertEquals(2, holder.getConfigurations().size());
+
+        holder.removeConfigurations();
+        Assert.assertTrue(holder.getConfigurations().isEmpty());
+        Assert.assertNull(holder.getConfiguration("config"));
+    }
+}
@@ -7,14 +7,39 @@
 
 package com.prutsoft.config.test;
 
+import com.prutsoft.config.ConfigKey;
 import com.prutsoft.config.Configuration;
+import com.prutsoft.config.ConfigurationImpl;
 import com.prutsoft.config.ContextMap;
+import com.prutsoft.config.ReloadableConfiguration;
 import com.prutsoft.config.Version;
+import com.prutsoft.config.element.ElementIndex;
+import com.prutsoft.config.element.cache.CachePolicy;
+import com.prutsoft.config.element.cache.EvaluationCache;
+import com.prutsoft.config.element.control.SwitchElement;
+import com.prutsoft.config.element.expression.ExpressionElement;
+import com.prutsoft.config.element.pojo.PojoElement;
+import com.prutsoft.config.element.property.Property;
+import com.prutsoft.config.element.set.PropertySet;
+import com.prutsoft.config.element.value.RegularValue;
+import com.prutsoft.config.element.value.ValueTypeRegistry;
+import com.prutsoft.config.parser.ConfigurationBuilder;
+import com.prutsoft.config.parser.xml.StaxConfigurationParser;
+import com.prutsoft.config.parser.xml.XmlConfigurationParser;
+import com.prutsoft.config.resource.StringResource;
 import com.prutsoft.config.service.ConfigurationService;
 import com.prutsoft.config.service.ConfigurationServiceImpl;
+import com.prutsoft.core.code.Warnings;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * The test cases for the configuration service.
  *
@@ -40,11 +65,19 @@ public class ConfigurationServiceTestCase {
             "<on condition='x == 2'><value>x2</value></on>" +
             "<else><value>xxx</value></else>" +
             "</switch>" +
+            "<expression name='cached' value='x.length() + y' cache-size='2' cache-ttl='1m'/>" +
+            "<switch name='cachedSwitch' cache-size='10'>" +
+            "<on condition='x == 1'><value>x1</value></on>" +
+            "<else><value>xxx</value></else>" +
+            "</switch>" +
             "" +
             "<pojo name='student' class='com.prutsoft.config.test.Student'>" +
             "<property name='firstName' value='Ruslan'/>" +
             "<property name='lastName' value='Khmelyuk'/>" +
             "</pojo>" +
+            "<pojo name='sharedStudent' class='com.prutsoft.config.test.Student' instance='singleton'>" +
+            "<property name='firstName' value='Ruslan'/>" +
+            "</pojo>" +
             " </configuration>";
 
     private ConfigurationService getConfigurationService() throws Exception {
@@ -69,6 +102,26 @@ public class ConfigurationServiceTestCase {
         Assert.assertEquals(2292, (long) config.getInteger("t1"));
     }
 
+    @Test
+    public void testStaticValues() throws Exception {
+        Configuration config = getConfigurationService().configuration("test", "1.0.23");
+
+        Set<String> set = config.getStringsSet("x1");
+        Assert.assertTrue(set.contains("xx"));
+        Assert.assertSame(set, config.getStringsSet("x1"));
+        Assert.assertSame(set, config.key("x1", Set.class).get());
+        Assert.assertSame(config.getString("t1"), config.getString("t1"));
+        Assert.assertEquals("2292", config.getString("t1"));
+
+        try {
+            set.add("yy");
+            Assert.fail("Value of static set should be unmodifiable.");
+        }
+        catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
     @Test
     public void testSet() throws Exception {
         Configuration config = getConfigurationService().configuration("test", "1.0.23");
@@ -95,6 +148,125 @@ public class ConfigurationServiceTestCase {
         Assert.assertFalse("xx2".equals(config.getString("ttk", new ContextMap("x", 22))));
     }
 
+    @Test
+    public void testCachedEvaluation() throws Exception {
+        Configuration config = getConfigurationService().configuration("test", "1.0.23");
+
+        ContextMap context = new ContextMap("x", "abc");
+        context.put("y", 1);
+        Assert.assertEquals(4, ((Number) config.getValue("cached", context)).intValue());
+        context.put("z", "not referenced");
+        Assert.assertEquals(4, ((Number) config.getValue("cached", context)).intValue());
+        context.put("y", 2);
+        Assert.assertEquals(5, ((Number) config.getValue("cached", context)).intValue());
+
+        EvaluationCache cache = ((ExpressionElement) config.findElement("cached")).getCache();
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertEquals(2, cache.size());
+
+        Assert.assertEquals("x1", config.getString("cachedSwitch", new ContextMap("x", 1)));
+        Assert.assertEquals("xxx", config.getString("cachedSwitch", new ContextMap("x", 2)));
+        Assert.assertEquals("x1", config.getString("cachedSwitch", new ContextMap("x", 1)));
+        cache = ((SwitchElement) config.findElement("cachedSwitch")).getCache();
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testCacheEviction() throws Exception {
+        EvaluationCache cache = new EvaluationCache(new CachePolicy(4, 0), null);
+        Object recent = cache.getKey(Collections.<String, Object>singletonMap("x", 0));
+        cache.put(recent, "recent");
+        for (int i = 1; i < 4; i++) {
+            cache.put(cache.getKey(Collections.<String, Object>singletonMap("x", i)), i);
+        }
+        Assert.assertEquals("recent", cache.get(recent));
+        Assert.assertEquals(4, cache.size());
+
+        for (int i = 4; i < 20; i++) {
+            cache.put(cache.getKey(Collections.<String, Object>singletonMap("x", i)), i);
+            Assert.assertEquals(4, cache.size());
+        }
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testCacheEvictionSamplesAllResults() throws Exception {
+        EvaluationCache cache = new EvaluationCache(new CachePolicy(64, 0), null);
+        List<Object> eldest = new ArrayList<Object>();
+        for (int i = 0; i < 64; i++) {
+            eldest.add(cache.getKey(Collections.<String, Object>singletonMap("x", i)));
+            cache.put(eldest.get(i), i);
+        }
+        Thread.sleep(10);
+
+        for (int i = 64; i < 64 * 4; i++) {
+            cache.put(cache.getKey(Collections.<String, Object>singletonMap("x", i)), i);
+        }
+        for (Object each : eldest) {
+            Assert.assertSame(EvaluationCache.NOT_CACHED, cache.get(each));
+        }
+    }
+
+    @Test
+    @SuppressWarnings(Warnings.Unchecked)
+    public void testKey() throws Exception {
+        Configuration config = getConfigurationService().configuration("test", "1.0.23");
+
+        ConfigKey<Integer> key = config.key("x1:x1:xxx", Integer.class);
+        Assert.assertEquals(23, (long) key.get());
+
+        ConfigKey<String> missing = config.key("x1:missing", String.class);
+        Assert.assertNull(missing.get());
+        Assert.assertEquals("default", missing.getOrDefault("default"));
+
+        ConfigKey<Integer> t1 = config.key("t1", Integer.class);
+        Assert.assertEquals(2292, (long) t1.get());
+
+        // handle must follow reloaded configuration
+        final Property property = new Property("t1");
+        property.setValue(RegularValue.create("1", ValueTypeRegistry.getInstance().getValueType("integer")));
+        final ConfigurationBuilder builder = new ConfigurationBuilder();
+        builder.setName("test");
+        builder.setVersion("1.0.23");
+        builder.addProperty(property);
+        ((ReloadableConfiguration) config).setConfiguration(builder.toConfiguration());
+
+        Assert.assertEquals(1, (long) t1.get());
+        Assert.assertNull(key.get());
+    }
+
+    @Test
+    public void testMissingProperty() throws Exception {
+        ElementIndex.setStatisticsEnabled(true);
+        try {
+            ReloadableConfiguration config = (ReloadableConfiguration)
+                    getConfigurationService().configuration("test", "1.0.23");
+
+            Assert.assertEquals(7, (long) config.getInteger("missing", 7));
+            Assert.assertTrue(config.getBoolean("x1:missing", true));
+            Assert.assertEquals(2292, (long) config.getInteger("t1", 7));
+
+            ElementIndex index = ((ConfigurationImpl) config.getConfiguration()).getElementIndex();
+            Assert.assertEquals(2, index.getMissCount());
+            Assert.assertEquals(1, index.getHitCount());
+
+            // counters are per configuration snapshot
+            final ConfigurationBuilder builder = new ConfigurationBuilder();
+            builder.setName("test");
+            builder.setVersion("1.0.23");
+            config.setConfiguration(builder.toConfiguration());
+
+            Assert.assertNull(config.getInteger("t1"));
+            index = ((ConfigurationImpl) config.getConfiguration()).getElementIndex();
+            Assert.assertEquals(1, index.getMissCount());
+            Assert.assertEquals(0, index.getHitCount());
+        }
+        finally {
+            ElementIndex.setStatisticsEnabled(false);
+        }
+    }
+
     @Test
     public void testPojo() throws Exception {
         Configuration config = getConfigurationService().configuration("test", "1.0.23");
@@ -103,6 +275,73 @@ public class ConfigurationServiceTestCase {
 
         Assert.assertEquals("Ruslan", s.getFirstName());
         Assert.assertEquals("Khmelyuk", s.getLastName());
+        Assert.assertNotSame(s, config.getValue("student"));
+
+        Student shared = (Student) config.getValue("sharedStudent");
+        Assert.assertEquals("Ruslan", shared.getFirstName());
+        Assert.assertSame(shared, config.getValue("sharedStudent"));
+    }
+
+    @Test
+    public void testPojoCollectionProperty() throws Exception {
+        final PropertySet courses = new PropertySet("courses");
+        courses.addElement(property("math", "Math"));
+        courses.addElement(property("physics", "Physics"));
+        final PojoElement pojo = new PojoElement("student", Student.class);
+        pojo.addElement(property("firstName", "Ruslan"));
+        pojo.addElement(courses);
+
+        for (int i = 0; i < 2; i++) {
+            Student s = (Student) pojo.getPojoNewInstance();
+            Assert.assertEquals("Ruslan", s.getFirstName());
+            Assert.assertEquals(new HashSet<String>(Arrays.asList("Math", "Physics")), s.getCourses());
+        }
+    }
+
+    @Test
+    public void testStaxParser() throws Exception {
+        final String included = "<configuration name='included' version='1.0.0'>" +
+                "<include path='classpath:com/prutsoft/config/test/included/config3.xml'/>" +
+                "<property name='p'><description>Some <![CDATA[<text>]]></description>" +
+                "<value type='integer'>10</value></property>" +
+                "</configuration>";
+
+        for (String each : new String[] {configuration.substring("string:".length()), included}) {
+            ConfigurationBuilder dom = new XmlConfigurationParser().parse(new StringResource(each));
+            ConfigurationBuilder stax = new StaxConfigurationParser().parse(new StringResource(each));
+            Assert.assertEquals(dom.getConfigurationPaths(), stax.getConfigurationPaths());
+
+            ConfigurationImpl domConfig = (ConfigurationImpl) dom.toConfiguration();
+            ConfigurationImpl staxConfig = (ConfigurationImpl) stax.toConfiguration();
+            Assert.assertEquals(domConfig.getName(), staxConfig.getName());
+            Assert.assertEquals(domConfig.getVersion(), staxConfig.getVersion());
+            Assert.assertEquals(String.valueOf(domConfig.getReloadPolicy()), String.valueOf(staxConfig.getReloadPolicy()));
+            Assert.assertEquals(domConfig.getMetadata().getPropertyValue("x2"),
+                    staxConfig.getMetadata().getPropertyValue("x2"));
+
+            ElementIndex domIndex = domConfig.getElementIndex();
+            ElementIndex staxIndex = staxConfig.getElementIndex();
+            Assert.assertEquals(domIndex.getPaths(), staxIndex.getPaths());
+            for (String path : domIndex.getPaths()) {
+                Assert.assertEquals(domIndex.get(path).getClass(), staxIndex.get(path).getClass());
+                if (domIndex.get(path) instanceof Property) {
+                    Property domProperty = (Property) domIndex.get(path);
+                    Property staxProperty = (Property) staxIndex.get(path);
+                    Assert.assertEquals(domProperty.getDescription(), staxProperty.getDescription());
+                    Assert.assertEquals(domConfig.getValue(path), staxConfig.getValue(path));
+                }
+            }
+        }
+
+        Configuration config = new StaxConfigurationParser().parse(new StringResource(included)).toConfiguration();
+        Assert.assertEquals("Some <text>", ((Property) config.findElement("p")).getDescription());
+        Assert.assertEquals(10, (long) config.getInteger("p"));
     }
 
+    @SuppressWarnings(Warnings.Unchecked)
+    private static Property property(String name, String value) throws Exception {
+        final Property property = new Property(name);
+        property.setValue(RegularValue.create(value, ValueTypeRegistry.getInstance().getValueType("string")));
+        return property;
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.test;
+
+import com.prutsoft.config.ConfigKey;
+import com.prutsoft.config.ConfigurationImpl;
+import com.prutsoft.config.NamedElement;
+import com.prutsoft.config.Version;
+import com.prutsoft.config.element.ElementIndex;
+import com.prutsoft.config.element.property.Property;
+import com.prutsoft.config.element.set.PropertySet;
+import com.prutsoft.config.element.value.RegularValue;
+import com.prutsoft.config.element.value.ValueType;
+import com.prutsoft.config.element.value.ValueTypeRegistry;
+import com.prutsoft.core.code.Warnings;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * The test cases for the flat index of configuration elements.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-17
+ */
+public class ElementIndexTestCase {
+
+    @Test
+    public void testNestedPaths() throws Exception {
+        ConfigurationImpl config = configuration("config");
+        PropertySet db = new PropertySet("db");
+        PropertySet pool = new PropertySet("pool");
+        Property size = property("size", "10");
+        pool.addElement(size);
+        db.addElement(pool);
+        config.addElement(db);
+
+        ElementIndex index = config.getElementIndex();
+        Assert.assertEquals(3, index.size());
+        Assert.assertSame(size, index.get("db:pool:size"));
+        Assert.assertSame(pool, index.get("db:pool"));
+        Assert.assertNull(index.get("db:pool:missing"));
+
+        Assert.assertSame(size, config.findElement("db", "pool", "size"));
+        Assert.assertSame(size, config.findElement("db:pool:size"));
+        Assert.assertEquals("10", config.getString("db:pool:size"));
+    }
+
+    @Test
+    public void testIncludePrecedence() throws Exception {
+        ConfigurationImpl root = configuration("root");
+        root.addElement(property("a", "root"));
+
+        ConfigurationImpl first = configuration("first");
+        first.addElement(property("a", "first"));
+        first.addElement(property("b", "first"));
+
+        ConfigurationImpl nested = configuration("nested");
+        nested.addElement(property("d", "nested"));
+        first.addIncludedConfiguration(nested);
+
+        ConfigurationImpl second = configuration("second");
+        second.addElement(property("b", "second"));
+        second.addElement(property("c", "second"));
+        second.addElement(property("d", "second"));
+
+        root.addIncludedConfiguration(first);
+        root.addIncludedConfiguration(second);
+
+        // own elements hide included ones, earlier includes with their includes hide later ones
+        Assert.assertEquals("root", root.getString("a"));
+        Assert.assertEquals("first", root.getString("b"));
+        Assert.assertEquals("second", root.getString("c"));
+        Assert.assertEquals("nested", root.getString("d"));
+        Assert.assertEquals(4, root.getElementIndex().size());
+    }
+
+    @Test
+    public void testNullValueHidesIncluded() throws Exception {
+        ConfigurationImpl root = configuration("root");
+        Property own = property("a", null);
+        root.addElement(own);
+
+        ConfigurationImpl included = configuration("included");
+        included.addElement(property("a", "included"));
+        root.addIncludedConfiguration(included);
+
+        Assert.assertSame(own, root.findElement("a"));
+        Assert.assertNull(root.getString("a"));
+    }
+
+    @Test
+    public void testRebuildAfterChange() throws Exception {
+        ConfigurationImpl root = configuration("root");
+        root.addElement(property("a", "root"));
+        ElementIndex index = root.getElementIndex();
+        Assert.assertSame(index, root.getElementIndex());
+
+        ConfigurationImpl included = configuration("included");
+        included.addElement(property("b", "included"));
+        root.addIncludedConfiguration(included);
+        Assert.assertNotSame(index, root.getElementIndex());
+        Assert.assertEquals("included", root.getString("b"));
+
+        root.addElement(property("b", "root"));
+        Assert.assertEquals("root", root.getString("b"));
+
+        root.removeElement("b");
+        Assert.assertEquals("included", root.getString("b"));
+        NamedElement missing = root.findElement("c");
+        Assert.assertNull(missing);
+    }
+
+    @Test
+    @SuppressWarnings(Warnings.Unchecked)
+    public void testChangedStaticValues() throws Exception {
+        ConfigurationImpl config = configuration("config");
+        Property size = property("size", "10");
+        PropertySet pool = new PropertySet("pool");
+        pool.addElement(property("min", "1"));
+        config.addElement(size);
+        config.addElement(pool);
+        ConfigKey<String> key = config.key("size", String.class);
+
+        Assert.assertEquals("10", config.getString("size"));
+        Assert.assertEquals("10", key.get());
+        Assert.assertNotNull(config.getElementIndex().getStaticValue("size"));
+
+        // value holder is changed in place
+        size.getValue().setValue("20");
+        Assert.assertNull(config.getElementIndex().getStaticValue("size"));
+        Assert.assertEquals("20", config.getString("size"));
+        Assert.assertEquals("20", config.getValue("size"));
+        Assert.assertEquals("20", key.get());
+
+        // value holder is replaced
+        size.setValue(RegularValue.create("30", ValueTypeRegistry.getInstance().getValueType("string")));
+        Assert.assertEquals("30", config.getString("size"));
+        Assert.assertEquals("30", key.get());
+
+        // set element is added
+        Assert.assertEquals(1, config.getStringsSet("pool").size());
+        pool.addElement(property("max", "5"));
+        Assert.assertEquals(2, config.getStringsSet("pool").size());
+        Assert.assertTrue(config.getStringsSet("pool").contains("5"));
+    }
+
+    private static ConfigurationImpl configuration(String name) {
+        return new ConfigurationImpl(name, Version.parse("1.0.0"));
+    }
+
+    @SuppressWarnings(Warnings.Unchecked)
+    private static Property property(String name, String value) throws Exception {
+        final ValueType<String> type = ValueTypeRegistry.getInstance().getValueType("string");
+        final Property property = new Property(name);
+        property.setValue(RegularValue.create(value, type));
+        return property;
+    }
+}
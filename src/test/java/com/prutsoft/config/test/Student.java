@@ -7,6 +7,9 @@
 
 package com.prutsoft.config.test;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * TODO - Write JavaDoc comment
  *
@@ -17,6 +20,7 @@ public class Student {
 
     private String firstName;
     private String lastName;
+    private final Set<String> courses = new HashSet<String>();
 
     public String getFirstName() {
         return firstName;
@@ -33,4 +37,8 @@ public class Student {
     public void setLastName(String lastName) {
         this.lastName = lastName;
     }
+
+    public Set<String> getCourses() {
+        return courses;
+    }
 }
@@ -7,6 +7,9 @@
 
 package com.prutsoft.config.test.annotation;
 
+import com.prutsoft.config.annotation.Configuration;
+import com.prutsoft.config.annotation.Property;
+import com.prutsoft.config.annotation.PropertyNotFoundException;
 import com.prutsoft.config.service.ConfigurationService;
 import com.prutsoft.config.service.ConfigurationServiceImpl;
 import org.junit.Assert;
@@ -61,4 +64,25 @@ public class AnnotationTestCase {
 
         Assert.assertEquals("Hello Ruslan!", config.sayHello("Ruslan", "!"));
     }
+
+    @Test
+    public void testObjectMethods() throws Exception {
+        TestConfig config = getConfigurationService().staticConfiguration(TestConfig.class, "test");
+
+        Assert.assertEquals(config, config);
+        Assert.assertEquals(System.identityHashCode(config), config.hashCode());
+        Assert.assertTrue(config.toString().startsWith("TestConfig"));
+    }
+
+    @Test(expected = PropertyNotFoundException.class)
+    public void testBindMissingProperty() throws Exception {
+        getConfigurationService().dynamicConfiguration(MissingPropertyConfig.class, "test");
+    }
+
+    @Configuration
+    public interface MissingPropertyConfig {
+
+        @Property("middleName")
+        String getMiddleName();
+    }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.test.benchmark;
+
+import com.prutsoft.config.Configuration;
+import com.prutsoft.config.ReloadableConfiguration;
+import com.prutsoft.config.element.property.Property;
+import com.prutsoft.config.element.value.RegularValue;
+import com.prutsoft.config.element.value.ValueTypeRegistry;
+import com.prutsoft.config.parser.ConfigurationBuilder;
+import com.prutsoft.core.code.Warnings;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compares reads through {@link ReloadableConfiguration} with the reads guarded
+ * by the read-write lock (the way reloadable configuration was implemented before).
+ * <p>
+ * Run it with {@code main()}; it's not a test case and is not executed with the tests.
+ * It's a plain harness and not a JMH benchmark, as the build has neither JMH dependency
+ * nor a separate benchmark module; each mode is warmed up before it's measured.
+ * Each mode is measured for 1, 8, 32 and 64 reader threads while other thread
+ * reloads configuration every 10 ms.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-01
+ */
+public class ReloadableConfigurationBenchmark {
+
+    private static final int[] THREADS = {1, 8, 32, 64};
+    private static final long WARMUP_MILLIS = 2000;
+    private static final long MEASURE_MILLIS = 5000;
+
+    /**
+     * Keeps read results alive, so reads are not eliminated by JIT.
+     */
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        final Configuration configuration = createConfiguration();
+
+        for (int threads : THREADS) {
+            run("rw-lock  ", threads, new LockingReader(configuration));
+            run("lock-free", threads, new SnapshotReader(configuration));
+        }
+    }
+
+    private static void run(String mode, int threads, Reader reader) throws Exception {
+        measure(threads, reader, WARMUP_MILLIS);
+        final long reads = measure(threads, reader, MEASURE_MILLIS);
+
+        System.out.println(mode + " threads=" + threads
+                + " reads/ms=" + (reads / MEASURE_MILLIS));
+    }
+
+    private static long measure(int threads, final Reader reader, long millis) throws Exception {
+        final AtomicLong reads = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final long deadline = System.currentTimeMillis() + millis;
+
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        long count = 0;
+                        long sum = 0;
+                        while ((count & 0xFFF) != 0 || System.currentTimeMillis() < deadline) {
+                            sum += reader.read();
+                            count++;
+                        }
+                        reads.addAndGet(count);
+                        sink = sum;
+                    }
+                    catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        final Thread reloader = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    while (System.currentTimeMillis() < deadline) {
+                        reader.reload(createConfiguration());
+                        Thread.sleep(10);
+                    }
+                }
+                catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+
+        start.countDown();
+        reloader.start();
+        done.await();
+        reloader.join();
+
+        return reads.get();
+    }
+
+    @SuppressWarnings(Warnings.Unchecked)
+    private static Configuration createConfiguration() throws Exception {
+        final ConfigurationBuilder builder = new ConfigurationBuilder();
+        builder.setName("benchmark");
+        builder.setVersion("1.0.0");
+
+        for (int i = 0; i < 100; i++) {
+            final Property property = new Property("property" + i);
+            property.setValue(RegularValue.create(String.valueOf(i),
+                    ValueTypeRegistry.getInstance().getValueType("integer")));
+            builder.addProperty(property);
+        }
+
+        return builder.toConfiguration();
+    }
+
+    // ------------------------------------------------------------
+
+    private interface Reader {
+
+        int read();
+
+        void reload(Configuration configuration);
+    }
+
+    /**
+     * Reads the configuration under the read lock.
+     */
+    private static class LockingReader implements Reader {
+
+        private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+        private Configuration configuration;
+
+        private LockingReader(Configuration configuration) {
+            this.configuration = configuration;
+        }
+
+        public int read() {
+            readWriteLock.readLock().lock();
+            try {
+                return configuration.getInteger("property42");
+            }
+            finally {
+                readWriteLock.readLock().unlock();
+            }
+        }
+
+        public void reload(Configuration newConfiguration) {
+            readWriteLock.writeLock().lock();
+            try {
+                configuration = newConfiguration;
+            }
+            finally {
+                readWriteLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Reads the configuration through the lock-free reloadable configuration.
+     */
+    private static class SnapshotReader implements Reader {
+
+        private final ReloadableConfiguration configuration;
+
+        private SnapshotReader(Configuration configuration) {
+            this.configuration = new ReloadableConfiguration(configuration);
+        }
+
+        public int read() {
+            return configuration.getInteger("property42");
+        }
+
+        public void reload(Configuration newConfiguration) {
+            configuration.setConfiguration(newConfiguration);
+        }
+    }
+}
@@ -8,11 +8,18 @@
 package com.prutsoft.config.test.included;
 
 import com.prutsoft.config.Configuration;
+import com.prutsoft.config.exception.ConfigurationLoadException;
+import com.prutsoft.config.resource.ResourceRegistry;
+import com.prutsoft.config.service.ConfigurationHolder;
+import com.prutsoft.config.service.ConfigurationLoaderImpl;
 import com.prutsoft.config.service.ConfigurationService;
 import com.prutsoft.config.service.ConfigurationServiceImpl;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * The included configuration test case.
  *
@@ -38,4 +45,56 @@ public class IncludedConfigurationTestCase {
         Assert.assertEquals("Khmelyuk", config.getString("Ruslan"));
         Assert.assertNull(config.getString("Johny"));
     }
+
+    @Test
+    public void testSharedInclude() throws Exception {
+        ConfigurationService service = getConfigurationService();
+        service.load("classpath:com/prutsoft/config/test/included/config4.xml");
+
+        Configuration config1 = service.configuration("config1", "1.0.0");
+        Configuration config4 = service.configuration("config4", "1.0.0");
+
+        Assert.assertEquals("Smith", config4.getString("John"));
+        Assert.assertEquals("Khmelyuk", config4.getString("Ruslan"));
+        Assert.assertSame(config1.getIncludedConfigurations().iterator().next(),
+                config4.getIncludedConfigurations().iterator().next());
+    }
+
+    @Test
+    public void testParallelLoad() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ConfigurationLoaderImpl loader = new ConfigurationLoaderImpl(ResourceRegistry.create(), pool);
+            ConfigurationHolder holder = new ConfigurationHolder();
+            loader.load(Arrays.asList(CONFIGURATION,
+                    "classpath:com/prutsoft/config/test/included/config4.xml"), holder);
+
+            Assert.assertEquals("Khmelyuk", holder.getConfiguration("config1").getString("Ruslan"));
+            Assert.assertEquals("Jane", holder.getConfiguration("config4").getString("Mary"));
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testLoadErrors() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        ConfigurationLoaderImpl loader = new ConfigurationLoaderImpl(ResourceRegistry.create(), pool);
+        ConfigurationHolder holder = new ConfigurationHolder();
+        try {
+            loader.load(Arrays.asList(
+                    "classpath:com/prutsoft/config/test/included/missing1.xml",
+                    CONFIGURATION,
+                    "classpath:com/prutsoft/config/test/included/missing2.xml"), holder);
+            Assert.fail("Configurations must not be loaded.");
+        }
+        catch (ConfigurationLoadException e) {
+            Assert.assertEquals(1, e.getSuppressed().length);
+        }
+        finally {
+            pool.shutdown();
+        }
+        Assert.assertTrue(holder.getConfigurations().isEmpty());
+    }
 }
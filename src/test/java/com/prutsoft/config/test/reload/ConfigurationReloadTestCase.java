@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.test.reload;
+
+import com.prutsoft.config.Configuration;
+import com.prutsoft.config.ConfigurationChangeListener;
+import com.prutsoft.config.ConfigurationDiff;
+import com.prutsoft.config.ContextMap;
+import com.prutsoft.config.ReloadableConfiguration;
+import com.prutsoft.config.Version;
+import com.prutsoft.config.VersionRange;
+import com.prutsoft.config.element.expression.ExpressionElement;
+import com.prutsoft.config.resource.Resource;
+import com.prutsoft.config.resource.ResourceRegistry;
+import com.prutsoft.config.resource.StringResource;
+import com.prutsoft.config.service.AsyncConfigurationListener;
+import com.prutsoft.config.service.ConfigurationHolder;
+import com.prutsoft.config.service.ConfigurationHolderChangeListener;
+import com.prutsoft.config.service.ConfigurationLoaderImpl;
+import com.prutsoft.config.service.ReloadServiceImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The test cases for the configuration reload.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-10
+ */
+public class ConfigurationReloadTestCase {
+
+    private static String configuration(String value) {
+        return "<configuration name='reloaded' version='1.0.0'>"
+                + "<reload><onchange check-every='1h'/></reload>"
+                + "<property name='value' value='" + value + "'/>"
+                + "</configuration>";
+    }
+
+    @Test
+    public void testSkipNotChanged() throws Exception {
+        final ConfigurationLoaderImpl loader = new ConfigurationLoaderImpl(ResourceRegistry.create());
+        final ConfigurationHolder holder = new ConfigurationHolder();
+        loader.load("string:" + configuration("first"), holder);
+
+        final ReloadableConfiguration config = (ReloadableConfiguration) holder.getConfiguration("reloaded");
+        final Configuration snapshot = config.getConfiguration();
+
+        loader.reload(config, new StringResource(configuration("first")));
+        Assert.assertSame(snapshot, config.getConfiguration());
+        Assert.assertEquals(1, loader.getSkippedReloadCount());
+
+        loader.reload(config, new StringResource(configuration("second")));
+        Assert.assertNotSame(snapshot, config.getConfiguration());
+        Assert.assertEquals("second", config.getString("value"));
+        Assert.assertEquals(1, loader.getSkippedReloadCount());
+    }
+
+    @Test
+    public void testReloadChangedVersion() throws Exception {
+        final ConfigurationLoaderImpl loader = new ConfigurationLoaderImpl(ResourceRegistry.create());
+        final ConfigurationHolder holder = new ConfigurationHolder();
+        loader.load("string:" + configuration("first"), holder);
+
+        final ReloadableConfiguration config = (ReloadableConfiguration) holder.getConfiguration("reloaded", "1.0.0");
+        Assert.assertNotNull(config);
+
+        loader.reload(config, new StringResource(configuration("second").replace("1.0.0", "2.0.0")));
+        Assert.assertEquals(Version.parse("2.0.0"), config.getVersion());
+        Assert.assertSame(config, holder.getConfiguration("reloaded", "2.0.0"));
+        Assert.assertSame(config, holder.getConfiguration("reloaded", Version.parse("2.0.0")));
+        Assert.assertNull(holder.getConfiguration("reloaded", "1.0.0"));
+        Assert.assertSame(config, holder.getConfiguration("reloaded", VersionRange.parse(">=2.0.0 <3.0.0")));
+        Assert.assertSame(config, holder.getConfiguration("reloaded"));
+        Assert.assertEquals(1, holder.getConfigurations().size());
+    }
+
+    @Test
+    public void testReloadChangedInclude() throws Exception {
+        final File first = File.createTempFile("first", ".xml");
+        final File second = File.createTempFile("second", ".xml");
+        try {
+            writeIncluded(first, "first", "1");
+            writeIncluded(second, "second", "2");
+
+            final ConfigurationLoaderImpl loader = new ConfigurationLoaderImpl(ResourceRegistry.create());
+            final ConfigurationHolder holder = new ConfigurationHolder();
+            final String root = "<configuration name='root' version='1.0.0'>"
+                    + "<reload><onchange check-every='1h'/></reload>"
+                    + "<include path='file:" + first.getAbsolutePath() + "'/>"
+                    + "<include path='file:" + second.getAbsolutePath() + "'/>"
+                    + "</configuration>";
+            loader.load("string:" + root, holder);
+
+            final ReloadableConfiguration config = (ReloadableConfiguration) holder.getConfiguration("root");
+            final Resource resource = new StringResource(root);
+            Assert.assertEquals(3, loader.getResources(config).size());
+            final List<Configuration> included = new ArrayList<Configuration>(config.getIncludedConfigurations());
+
+            loader.reload(config, resource);
+            Assert.assertEquals(1, loader.getSkippedReloadCount());
+
+            writeIncluded(first, "first", "3");
+            loader.reload(config, resource);
+            Assert.assertEquals(1, loader.getSkippedReloadCount());
+            Assert.assertEquals("3", config.getString("first"));
+            Assert.assertEquals("2", config.getString("second"));
+
+            final List<Configuration> reloaded = new ArrayList<Configuration>(config.getIncludedConfigurations());
+            Assert.assertNotSame(included.get(0), reloaded.get(0));
+            Assert.assertSame(included.get(1), reloaded.get(1));
+        }
+        finally {
+            first.delete();
+            second.delete();
+        }
+    }
+
+    @Test
+    public void testDiscardReusedCaches() throws Exception {
+        final File included = File.createTempFile("included", ".xml");
+        try {
+            final OutputStream out = new FileOutputStream(included);
+            try {
+                out.write(("<configuration name='included' version='1.0.0'>"
+                        + "<expression name='cached' value='x + 1' cache-size='10'/>"
+                        + "</configuration>").getBytes("UTF-8"));
+            }
+            finally {
+                out.close();
+            }
+
+            final ConfigurationLoaderImpl loader = new ConfigurationLoaderImpl(ResourceRegistry.create());
+            final ConfigurationHolder holder = new ConfigurationHolder();
+            final String root = "<configuration name='root' version='1.0.0'>"
+                    + "<reload><onchange check-every='1h'/></reload>"
+                    + "<include path='file:" + included.getAbsolutePath() + "'/>"
+                    + "<property name='value' value='%s'/>"
+                    + "</configuration>";
+            loader.load("string:" + String.format(root, "first"), holder);
+
+            final ReloadableConfiguration config = (ReloadableConfiguration) holder.getConfiguration("root");
+            final ExpressionElement cached = (ExpressionElement) config.findElement("cached");
+            Assert.assertEquals(2, ((Number) config.getValue("cached", new ContextMap("x", 1))).intValue());
+            Assert.assertEquals(1, cached.getCache().size());
+
+            loader.reload(config, new StringResource(String.format(root, "second")));
+            Assert.assertEquals("second", config.getString("value"));
+            Assert.assertSame(cached, config.findElement("cached"));
+            Assert.assertEquals(0, cached.getCache().size());
+        }
+        finally {
+            included.delete();
+        }
+    }
+
+    @Test
+    public void testReloadSharedInclude() throws Exception {
+        final File included = File.createTempFile("included", ".xml");
+        final File first = File.createTempFile("first", ".xml");
+        final File second = File.createTempFile("second", ".xml");
+        final ScheduledExecutorService executor = ReloadServiceImpl.createExecutor(2);
+        ReloadServiceImpl reloadService = null;
+        try {
+            writeIncluded(included, "included", "1");
+            writeRoot(first, "first", included);
+            writeRoot(second, "second", included);
+
+            final ConfigurationLoaderImpl loader = new ConfigurationLoaderImpl(ResourceRegistry.create());
+            final ConfigurationHolder holder = new ConfigurationHolder();
+            reloadService = new ReloadServiceImpl(loader, holder, executor);
+            loader.load("file:" + first.getAbsolutePath(), holder);
+            loader.load("file:" + second.getAbsolutePath(), holder);
+            Assert.assertEquals(1, loader.getSharedNodeCount());
+
+            final Configuration firstConfig = holder.getConfiguration("first");
+            final Configuration secondConfig = holder.getConfiguration("second");
+            Assert.assertEquals("1", firstConfig.getString("included"));
+            Assert.assertEquals("1", secondConfig.getString("included"));
+
+            final long lastModified = included.lastModified();
+            writeIncluded(included, "included", "2");
+            // file system may have low timestamp resolution
+            included.setLastModified(lastModified + 2000);
+
+            final long deadline = System.currentTimeMillis() + 20000;
+            while ((!"2".equals(firstConfig.getString("included")) || !"2".equals(secondConfig.getString("included")))
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Assert.assertEquals("2", firstConfig.getString("included"));
+            Assert.assertEquals("2", secondConfig.getString("included"));
+        }
+        finally {
+            if (reloadService != null) {
+                reloadService.shutdown();
+            }
+            executor.shutdownNow();
+            included.delete();
+            first.delete();
+            second.delete();
+        }
+    }
+
+    @Test
+    public void testLoadTwice() throws Exception {
+        final ConfigurationLoaderImpl loader = new ConfigurationLoaderImpl(ResourceRegistry.create());
+        final ConfigurationHolder first = new ConfigurationHolder();
+        final ConfigurationHolder second = new ConfigurationHolder();
+        final String configuration = "<configuration name='static' version='1.0.0'>"
+                + "<property name='value' value='1'/>"
+                + "</configuration>";
+        loader.load("string:" + configuration, first);
+        loader.load("string:" + configuration, second);
+
+        Assert.assertNotSame(first.getConfiguration("static"), second.getConfiguration("static"));
+    }
+
+    private static void writeRoot(File file, String name, File included) throws Exception {
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(("<configuration name='" + name + "' version='1.0.0'>"
+                    + "<reload><onchange check-every='1s'/></reload>"
+                    + "<include path='file:" + included.getAbsolutePath() + "'/>"
+                    + "</configuration>").getBytes("UTF-8"));
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    private static void writeIncluded(File file, String name, String value) throws Exception {
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(("<configuration name='" + name + "' version='1.0.0'>"
+                    + "<property name='" + name + "' value='" + value + "'/>"
+                    + "</configuration>").getBytes("UTF-8"));
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void testAsyncReloadListeners() throws Exception {
+        final ConfigurationLoaderImpl loader = new ConfigurationLoaderImpl(ResourceRegistry.create());
+        final ConfigurationHolder holder = new ConfigurationHolder();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        final CountDownLatch entered = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger reloads = new AtomicInteger();
+        final ConfigurationHolderChangeListener slowListener = new ConfigurationHolderChangeListener() {
+            public void process(Configuration configuration, Resource resource) {
+                entered.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        final AsyncConfigurationListener coalescing = new AsyncConfigurationListener(slowListener, executor, 1, true);
+        final AsyncConfigurationListener bounded = new AsyncConfigurationListener(slowListener, executor, 1, false);
+
+        try {
+            holder.addReloadConfigurationListener(coalescing);
+            holder.addReloadConfigurationListener(bounded);
+            holder.addReloadConfigurationListener(new ConfigurationHolderChangeListener() {
+                public void process(Configuration configuration, Resource resource) {
+                    reloads.incrementAndGet();
+                }
+            });
+            loader.load("string:" + configuration("first"), holder);
+            final ReloadableConfiguration config = (ReloadableConfiguration) holder.getConfiguration("reloaded");
+
+            loader.reload(config, new StringResource(configuration("second")));
+            Assert.assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            // reloaded while listeners are busy
+            loader.reload(config, new StringResource(configuration("third")));
+            loader.reload(config, new StringResource(configuration("fourth")));
+            loader.reload(config, new StringResource(configuration("fourth")));
+
+            Assert.assertEquals(3, reloads.get());
+            Assert.assertEquals(1, coalescing.getQueuedCount());
+            Assert.assertEquals(1, coalescing.getCoalescedCount());
+            Assert.assertEquals(0, coalescing.getDroppedCount());
+            Assert.assertEquals(1, bounded.getQueuedCount());
+            Assert.assertEquals(1, bounded.getDroppedCount());
+
+            release.countDown();
+            final long deadline = System.currentTimeMillis() + 5000;
+            while ((coalescing.getProcessedCount() < 2 || bounded.getProcessedCount() < 2)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(2, coalescing.getProcessedCount());
+            Assert.assertEquals(2, bounded.getProcessedCount());
+
+            holder.removeReloadConfigurationListener(coalescing);
+            holder.removeReloadConfigurationListener(bounded);
+            loader.reload(config, new StringResource(configuration("fifth")));
+            Assert.assertEquals(4, reloads.get());
+            Assert.assertEquals(2, coalescing.getQueuedCount() + coalescing.getProcessedCount());
+        }
+        finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAsyncListenerError() throws Exception {
+        final ConfigurationLoaderImpl loader = new ConfigurationLoaderImpl(ResourceRegistry.create());
+        final ConfigurationHolder holder = new ConfigurationHolder();
+        loader.load("string:" + configuration("first"), holder);
+        final Configuration config = holder.getConfiguration("reloaded");
+
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        final Executor executor = new Executor() {
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        };
+        final AtomicInteger calls = new AtomicInteger();
+        final AsyncConfigurationListener listener = new AsyncConfigurationListener(
+                new ConfigurationHolderChangeListener() {
+                    public void process(Configuration configuration, Resource resource) {
+                        if (calls.incrementAndGet() == 1) {
+                            throw new Error("Listener failed.");
+                        }
+                    }
+                }, executor, 10, false);
+
+        listener.process(config, null);
+        listener.process(config, null);
+        Assert.assertEquals(1, tasks.size());
+        try {
+            tasks.get(0).run();
+            Assert.fail("Error must be thrown to the executor.");
+        }
+        catch (Error e) {
+            Assert.assertEquals("Listener failed.", e.getMessage());
+        }
+
+        // the rest of events is dispatched again
+        Assert.assertEquals(2, tasks.size());
+        tasks.get(1).run();
+        Assert.assertEquals(2, listener.getProcessedCount());
+        Assert.assertEquals(0, listener.getQueuedCount());
+
+        listener.process(config, null);
+        Assert.assertEquals(3, tasks.size());
+        tasks.get(2).run();
+        Assert.assertEquals(3, listener.getProcessedCount());
+    }
+
+    @Test
+    public void testChangeListeners() throws Exception {
+        final ConfigurationLoaderImpl loader = new ConfigurationLoaderImpl(ResourceRegistry.create());
+        final ConfigurationHolder holder = new ConfigurationHolder();
+        loader.load("string:" + database("10", "30", "'db'"), holder);
+
+        final ReloadableConfiguration config = (ReloadableConfiguration) holder.getConfiguration("database");
+        final List<ConfigurationDiff> poolChanges = new ArrayList<ConfigurationDiff>();
+        final List<ConfigurationDiff> sizeChanges = new ArrayList<ConfigurationDiff>();
+        final List<ConfigurationDiff> allChanges = new ArrayList<ConfigurationDiff>();
+        config.onChange("db:pool", new DiffCollector(poolChanges));
+        config.onChange("db:pool:size", new DiffCollector(sizeChanges));
+        config.onChange(new DiffCollector(allChanges));
+
+        loader.reload(config, new StringResource(database("10", "60", "'db'")));
+        Assert.assertEquals(1, poolChanges.size());
+        Assert.assertEquals(0, sizeChanges.size());
+        Assert.assertEquals(Collections.singleton("db:pool:timeout"), poolChanges.get(0).getChanged());
+        Assert.assertTrue(poolChanges.get(0).getAdded().isEmpty());
+
+        loader.reload(config, new StringResource(database("20", null, "'db'")));
+        Assert.assertEquals(2, poolChanges.size());
+        Assert.assertEquals(1, sizeChanges.size());
+        Assert.assertEquals(Collections.singleton("db:pool:size"), sizeChanges.get(0).getChanged());
+        Assert.assertEquals(Collections.singleton("db:pool:timeout"), sizeChanges.get(0).getRemoved());
+
+        loader.reload(config, new StringResource(database("20", null, "'database'")));
+        Assert.assertEquals(2, poolChanges.size());
+        Assert.assertEquals(3, allChanges.size());
+        Assert.assertEquals(Collections.singleton("name"), allChanges.get(2).getChanged());
+    }
+
+    private static String database(String size, String timeout, String name) {
+        return "<configuration name='database' version='1.0.0'>"
+                + "<reload><onchange check-every='1h'/></reload>"
+                + "<set name='db'><set name='pool'>"
+                + "<property name='size' value='" + size + "' type='integer'/>"
+                + (timeout != null ? "<property name='timeout' value='" + timeout + "' type='integer'/>" : "")
+                + "</set></set>"
+                + "<expression name='name' value=\"" + name + "\"/>"
+                + "</configuration>";
+    }
+
+    private static class DiffCollector implements ConfigurationChangeListener {
+
+        private final List<ConfigurationDiff> diffs;
+
+        private DiffCollector(List<ConfigurationDiff> diffs) {
+            this.diffs = diffs;
+        }
+
+        public void changed(ReloadableConfiguration configuration, ConfigurationDiff diff) {
+            diffs.add(diff);
+        }
+    }
+}
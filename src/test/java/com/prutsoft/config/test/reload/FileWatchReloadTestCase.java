@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.test.reload;
+
+import com.prutsoft.config.Configuration;
+import com.prutsoft.config.service.ConfigurationServiceImpl;
+import com.prutsoft.config.service.ReloadServiceImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+/**
+ * The test cases for reload of the watched configuration file.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-09
+ */
+public class FileWatchReloadTestCase {
+
+    private static final long TIMEOUT_MILLIS = 20000;
+
+    private File file;
+    private ConfigurationServiceImpl service;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("watched", ".xml");
+        service = new ConfigurationServiceImpl();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        service.destroy();
+        file.delete();
+    }
+
+    @Test
+    public void testReloadOnChange() throws Exception {
+        writeConfiguration("first");
+        service.load("file:" + file.getAbsolutePath());
+
+        Configuration config = service.configuration("watched", "1.0.0");
+        Assert.assertEquals("first", config.getString("value"));
+
+        writeConfiguration("second");
+
+        waitForValue(config, "second");
+        Assert.assertEquals("second", config.getString("value"));
+    }
+
+    @Test
+    public void testCoalesceChanges() throws Exception {
+        final String policy = "watch='true' quiet-period='2s' max-delay='10s'";
+        writeConfiguration("first", policy);
+        service.load("file:" + file.getAbsolutePath());
+
+        Configuration config = service.configuration("watched", "1.0.0");
+        ReloadServiceImpl reloadService = (ReloadServiceImpl) service.getReloadService();
+
+        // changes are written with pauses, so watcher doesn't merge them into single event
+        writeConfiguration("second", policy);
+        Thread.sleep(300);
+        writeConfiguration("third", policy);
+        Thread.sleep(300);
+        writeConfiguration("fourth", policy);
+
+        waitForReloads(reloadService, 1);
+        Assert.assertEquals("fourth", config.getString("value"));
+        Assert.assertEquals(1, reloadService.getReloadCount());
+        Assert.assertTrue(reloadService.getCoalescedChangeCount() > 0);
+    }
+
+    @Test
+    public void testPollingQuietPeriod() throws Exception {
+        // the same change is found by several checks during the quiet period
+        final String policy = "check-every='1s' quiet-period='3s'";
+        writeConfiguration("first", policy);
+        service.load("file:" + file.getAbsolutePath());
+
+        Configuration config = service.configuration("watched", "1.0.0");
+        ReloadServiceImpl reloadService = (ReloadServiceImpl) service.getReloadService();
+
+        writeConfiguration("second", policy);
+
+        waitForReloads(reloadService, 1);
+        Assert.assertEquals("second", config.getString("value"));
+        Assert.assertEquals(1, reloadService.getReloadCount());
+        Assert.assertEquals(0, reloadService.getCoalescedChangeCount());
+    }
+
+    @Test
+    public void testMaxDelay() throws Exception {
+        final String policy = "watch='true' quiet-period='1h' max-delay='200ms'";
+        writeConfiguration("first", policy);
+        service.load("file:" + file.getAbsolutePath());
+
+        Configuration config = service.configuration("watched", "1.0.0");
+        writeConfiguration("second", policy);
+
+        waitForValue(config, "second");
+        Assert.assertEquals("second", config.getString("value"));
+    }
+
+    private void waitForValue(Configuration config, String value) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!value.equals(config.getString("value")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private void waitForReloads(ReloadServiceImpl reloadService, long count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (reloadService.getReloadCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private void writeConfiguration(String value) throws Exception {
+        writeConfiguration(value, "watch='true'");
+    }
+
+    private void writeConfiguration(String value, String policy) throws Exception {
+        final long lastModified = file.lastModified();
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(("<configuration name='watched' version='1.0.0'>"
+                    + "<reload><onchange " + policy + "/></reload>"
+                    + "<property name='value' value='" + value + "'/>"
+                    + "</configuration>").getBytes("UTF-8"));
+        }
+        finally {
+            out.close();
+        }
+        // file system may have low timestamp resolution
+        file.setLastModified(Math.max(lastModified + 2000, file.lastModified()));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.test.reload;
+
+import com.prutsoft.config.resource.ResourceRegistry;
+import com.prutsoft.config.service.ConfigurationHolder;
+import com.prutsoft.config.service.ConfigurationLoaderImpl;
+import com.prutsoft.config.service.ReloadServiceImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The test cases for the scheduling of configuration checks by reload service.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-18
+ */
+public class ReloadServiceTestCase {
+
+    private RecordingExecutor executor;
+    private ConfigurationLoaderImpl loader;
+    private ConfigurationHolder holder;
+    private ReloadServiceImpl reloadService;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = new RecordingExecutor();
+        loader = new ConfigurationLoaderImpl(ResourceRegistry.create());
+        holder = new ConfigurationHolder();
+        reloadService = new ReloadServiceImpl(loader, holder, executor);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        reloadService.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testJitteredStart() throws Exception {
+        final int count = 20;
+        for (int i = 0; i < count; i++) {
+            loader.load("string:<configuration name='checked" + i + "' version='1.0.0'>"
+                    + "<reload><onchange check-every='10s'/></reload>"
+                    + "<property name='value' value='" + i + "'/>"
+                    + "</configuration>", holder);
+        }
+
+        Assert.assertEquals(count, executor.initialDelays.size());
+        for (long each : executor.initialDelays) {
+            Assert.assertTrue("Initial delay " + each, each >= 5000 && each < 15000);
+        }
+        for (long each : executor.periods) {
+            Assert.assertEquals(10000, each);
+        }
+        // checks are spread over the period
+        Assert.assertTrue(new HashSet<Long>(executor.initialDelays).size() > 1);
+
+        reloadService.suspend();
+        Assert.assertEquals(count, executor.initialDelays.size());
+        reloadService.resume();
+        Assert.assertEquals(2 * count, executor.initialDelays.size());
+    }
+
+    // ------------------------------------------------------------
+
+    /**
+     * The executor that records delays of periodic tasks.
+     */
+    private static class RecordingExecutor extends ScheduledThreadPoolExecutor {
+
+        private final List<Long> initialDelays = Collections.synchronizedList(new ArrayList<Long>());
+        private final List<Long> periods = Collections.synchronizedList(new ArrayList<Long>());
+
+        private RecordingExecutor() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay,
+                                                         long delay, TimeUnit unit) {
+            initialDelays.add(unit.toMillis(initialDelay));
+            periods.add(unit.toMillis(delay));
+            return super.scheduleWithFixedDelay(command, initialDelay, delay, unit);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.test.resource;
+
+import com.prutsoft.config.Configuration;
+import com.prutsoft.config.parser.xml.StaxConfigurationParser;
+import com.prutsoft.config.parser.xml.XmlConfigurationParser;
+import com.prutsoft.config.resource.ByteBufferInputStream;
+import com.prutsoft.config.resource.FileResource;
+import com.prutsoft.config.resource.Resource;
+import com.prutsoft.config.resource.ResourceLoadException;
+import com.prutsoft.config.resource.ResourceUtil;
+import com.prutsoft.config.resource.SnapshotResource;
+import com.prutsoft.config.resource.StringResource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * The test cases for the file resource.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-12
+ */
+public class FileResourceTestCase {
+
+    private static final String CONTENT = "<configuration name='mapped' version='1.0.0'>"
+            + "<property name='value' value='mapped'/>"
+            + "</configuration>";
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("mapped", ".xml");
+        write(CONTENT);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    private void write(String content) throws Exception {
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    private void truncate() {
+        try {
+            final RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+            try {
+                truncated.setLength(0);
+            }
+            finally {
+                truncated.close();
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String largeContent() {
+        final StringBuilder result = new StringBuilder(SnapshotResource.MAPPING_THRESHOLD + CONTENT.length());
+        result.append(CONTENT, 0, CONTENT.length() - "</configuration>".length());
+        while (result.length() < SnapshotResource.MAPPING_THRESHOLD) {
+            result.append("<!-- padding of the mapped file -->");
+        }
+        return result.append("</configuration>").toString();
+    }
+
+    @Test
+    public void testByteBuffer() throws Exception {
+        final FileResource resource = new FileResource(file.getAbsolutePath());
+        final ByteBuffer buffer = resource.getByteBuffer();
+        Assert.assertTrue(buffer.isReadOnly());
+        Assert.assertEquals(CONTENT.length(), buffer.remaining());
+        Assert.assertFalse(resource.isChanged());
+
+        final InputStream input = new ByteBufferInputStream(buffer);
+        final byte[] bytes = new byte[CONTENT.length() + 10];
+        Assert.assertEquals('<', input.read());
+        Assert.assertEquals(CONTENT.length() - 1, input.read(bytes, 0, bytes.length));
+        Assert.assertEquals(-1, input.read());
+        Assert.assertEquals(CONTENT.substring(1), new String(bytes, 0, CONTENT.length() - 1, "UTF-8"));
+
+        // buffer itself is not read by stream
+        Assert.assertEquals(CONTENT.length(), buffer.remaining());
+
+        // small file is not mapped
+        Assert.assertFalse(buffer.isDirect());
+    }
+
+    @Test
+    public void testLargeFileNotMapped() throws Exception {
+        write(largeContent());
+
+        // file is truncated after it was read, but before it's parsed
+        final FileResource resource = new FileResource(file.getAbsolutePath()) {
+            @Override
+            public ByteBuffer getByteBuffer() throws ResourceLoadException {
+                final ByteBuffer result = super.getByteBuffer();
+                Assert.assertFalse(result.isDirect());
+                Assert.assertTrue(result.isReadOnly());
+                truncate();
+                return result;
+            }
+        };
+        final Configuration config = new StaxConfigurationParser().parse(resource).toConfiguration();
+        Assert.assertEquals("mapped", config.getString("value"));
+    }
+
+    @Test
+    public void testLargeSnapshotMapped() throws Exception {
+        write(largeContent());
+        final ByteBuffer buffer = new SnapshotResource(file.getAbsolutePath()).getByteBuffer();
+        Assert.assertTrue(buffer.isDirect());
+        Assert.assertTrue(buffer.isReadOnly());
+        Assert.assertEquals(file.length(), buffer.remaining());
+
+        // small snapshot is read to the heap
+        write(CONTENT);
+        Assert.assertFalse(new SnapshotResource(file.getAbsolutePath()).getByteBuffer().isDirect());
+    }
+
+    @Test
+    public void testFingerprintReadOnce() throws Exception {
+        final int[] reads = new int[1];
+        final FileResource resource = new FileResource(file.getAbsolutePath()) {
+            @Override
+            protected long getMappingThreshold() {
+                reads[0]++;
+                return super.getMappingThreshold();
+            }
+        };
+
+        final long fingerprint = resource.getFingerprint();
+        Assert.assertEquals(fingerprint, resource.getFingerprint());
+        Assert.assertEquals(1, reads[0]);
+
+        // content read to fingerprint it is parsed
+        Configuration config = new XmlConfigurationParser().parse(resource).toConfiguration();
+        Assert.assertEquals("mapped", config.getString("value"));
+        Assert.assertEquals(1, reads[0]);
+
+        config = new StaxConfigurationParser().parse(resource).toConfiguration();
+        Assert.assertEquals("mapped", config.getString("value"));
+        Assert.assertEquals(2, reads[0]);
+
+        write(CONTENT.replace("'mapped'/>", "'changed'/>"));
+        Assert.assertTrue(fingerprint != resource.getFingerprint());
+        Assert.assertEquals(3, reads[0]);
+        config = new StaxConfigurationParser().parse(resource).toConfiguration();
+        Assert.assertEquals("changed", config.getString("value"));
+        Assert.assertEquals(3, reads[0]);
+    }
+
+    @Test
+    public void testFingerprintCustomResource() throws Exception {
+        final Resource resource = new Resource() {
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(CONTENT.getBytes());
+            }
+
+            public String getName() {
+                return "custom";
+            }
+
+            public boolean isChanged() {
+                return false;
+            }
+
+            public boolean exists() {
+                return true;
+            }
+
+            public boolean reload() {
+                return true;
+            }
+        };
+        Assert.assertEquals(new StringResource(CONTENT).getFingerprint(), ResourceUtil.fingerprint(resource));
+        Assert.assertEquals(new FileResource(file.getAbsolutePath()).getFingerprint(), ResourceUtil.fingerprint(resource));
+    }
+
+    @Test
+    public void testParseMapped() throws Exception {
+        final Configuration config = new StaxConfigurationParser()
+                .parse(new FileResource(file.getAbsolutePath())).toConfiguration();
+        Assert.assertEquals("mapped", config.getString("value"));
+    }
+}
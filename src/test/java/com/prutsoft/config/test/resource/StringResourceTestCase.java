@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.test.resource;
+
+import com.prutsoft.config.Configuration;
+import com.prutsoft.config.parser.xml.StaxConfigurationParser;
+import com.prutsoft.config.parser.xml.XmlConfigurationParser;
+import com.prutsoft.config.resource.StringResource;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * The test cases for the string resource.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-18
+ */
+public class StringResourceTestCase {
+
+    private static final String VALUE = "Руслан éè";
+
+    private static final String CONTENT = "<configuration name='utf8' version='1.0.0'>"
+            + "<property name='value' value='" + VALUE + "'/>"
+            + "</configuration>";
+
+    @Test
+    public void testNonAsciiContent() throws Exception {
+        Configuration dom = new XmlConfigurationParser().parse(new StringResource(CONTENT)).toConfiguration();
+        Assert.assertEquals(VALUE, dom.getString("value"));
+
+        Configuration stax = new StaxConfigurationParser().parse(new StringResource(CONTENT)).toConfiguration();
+        Assert.assertEquals(VALUE, stax.getString("value"));
+    }
+}
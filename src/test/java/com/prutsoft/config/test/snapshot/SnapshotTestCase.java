@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2010 Ruslan Khmelyuk, Prutsoft
+ * All rights reserved.
+ *
+ * Application configuration framework.
+ */
+
+package com.prutsoft.config.test.snapshot;
+
+import com.prutsoft.config.Configuration;
+import com.prutsoft.config.ContextMap;
+import com.prutsoft.config.exception.ParseException;
+import com.prutsoft.config.parser.ConfigurationBuilder;
+import com.prutsoft.config.resource.SnapshotResource;
+import com.prutsoft.config.resource.StringResource;
+import com.prutsoft.config.service.ConfigurationService;
+import com.prutsoft.config.service.ConfigurationServiceImpl;
+import com.prutsoft.config.snapshot.SnapshotConfigurationParser;
+import com.prutsoft.config.snapshot.SnapshotWriter;
+import com.prutsoft.config.test.Student;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * The test cases for the configuration snapshots.
+ *
+ * @author Ruslan Khmelyuk
+ * @since 1.2.0, 2010-02-11
+ */
+public class SnapshotTestCase {
+
+    private static final String CONFIGURATION = "string:<configuration name='test' version='1.0.23'>" +
+            "<metadata><property name='Author' value='Ruslan'/></metadata>" +
+            "<reload><onchange check-every='5s'/></reload>" +
+            "<include path='classpath:com/prutsoft/config/test/included/config2.xml'/>" +
+            "<expression name='tL' value='23+27' cache-size='2'/>" +
+            "<property name='t1'><description>Number</description><value type='integer'>2292</value></property>" +
+            "<property name='list' value='a,b' type='list'/>" +
+            "<set name='x1'><set name='x1'><property name='xxx' value='23' type='integer'/></set></set>" +
+            "<switch name='ttk'>" +
+            "<on condition='x == 1'><value>x1</value></on>" +
+            "<else><value>xxx</value></else>" +
+            "</switch>" +
+            "<pojo name='student' class='com.prutsoft.config.test.Student' instance='singleton'>" +
+            "<property name='firstName' value='Ruslan'/>" +
+            "</pojo>" +
+            "</configuration>";
+
+    private File file;
+    private ConfigurationService service;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("config", ".snapshot");
+        service = new ConfigurationServiceImpl();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        service.destroy();
+        file.delete();
+    }
+
+    @Test
+    public void testLoadSnapshot() throws Exception {
+        service.load(CONFIGURATION);
+        new SnapshotWriter().write(service.configuration("test"), file);
+        service.unload(service.configuration("test"));
+
+        service.load("snapshot:" + file.getAbsolutePath());
+        Configuration config = service.configuration("test", "1.0.23");
+
+        Assert.assertEquals("Ruslan", config.getMetadata().getAuthor());
+        Assert.assertEquals(5, config.getReloadPolicy().getCheckEvery());
+        Assert.assertEquals(2292, (long) config.getInteger("t1"));
+        Assert.assertEquals(Arrays.asList("a", "b"), config.getStringsList("list"));
+        Assert.assertEquals(23, (long) config.getInteger("x1", "x1", "xxx"));
+        Assert.assertEquals(50, (long) config.getLong("tL"));
+        Assert.assertEquals("x1", config.getString("ttk", new ContextMap("x", 1)));
+        Assert.assertEquals("xxx", config.getString("ttk", new ContextMap("x", 2)));
+        Assert.assertEquals("Ruslan", ((Student) config.getValue("student")).getFirstName());
+        Assert.assertSame(config.getValue("student"), config.getValue("student"));
+
+        // included configurations are in the snapshot
+        Assert.assertEquals("Smith", config.getString("John"));
+        Assert.assertEquals("Khmelyuk", config.getString("Ruslan"));
+    }
+
+    @Test
+    public void testStableFormat() throws Exception {
+        service.load(CONFIGURATION);
+        Configuration config = service.configuration("test");
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        new SnapshotWriter().write(config, first);
+
+        Configuration read = new SnapshotConfigurationParser().read(new DataInputStream(
+                new ByteArrayInputStream(first.toByteArray()))).toConfiguration();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        new SnapshotWriter().write(read, second);
+
+        Assert.assertArrayEquals(first.toByteArray(), second.toByteArray());
+    }
+
+    @Test
+    public void testReplaceSnapshot() throws Exception {
+        service.load(CONFIGURATION);
+        new SnapshotWriter().write(service.configuration("test"), file);
+
+        // reader of the previous snapshot keeps reading it whole
+        final InputStream previous = new FileInputStream(file);
+        try {
+            ConfigurationBuilder other = new ConfigurationBuilder();
+            other.setName("other");
+            other.setVersion("2.0.0");
+            new SnapshotWriter().write(other.toConfiguration(), file);
+
+            Configuration read = new SnapshotConfigurationParser()
+                    .read(new DataInputStream(previous)).toConfiguration();
+            Assert.assertEquals("test", read.getName());
+        }
+        finally {
+            previous.close();
+        }
+
+        Configuration replaced = new SnapshotConfigurationParser()
+                .parse(new SnapshotResource(file.getAbsolutePath())).toConfiguration();
+        Assert.assertEquals("other", replaced.getName());
+
+        // temporary file is renamed to the snapshot
+        final String prefix = file.getName();
+        final String[] left = file.getAbsoluteFile().getParentFile().list(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.startsWith(prefix) && name.endsWith(".tmp");
+            }
+        });
+        Assert.assertEquals(0, left.length);
+    }
+
+    @Test(expected = ParseException.class)
+    public void testNotSnapshot() throws Exception {
+        new SnapshotConfigurationParser().parse(new StringResource(CONFIGURATION));
+    }
+}